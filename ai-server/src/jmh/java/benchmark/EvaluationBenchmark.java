@@ -0,0 +1,55 @@
+package benchmark;
+
+import game.Board;
+import game.Game;
+import game.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of evaluating one leaf, and of its mobility term counted by generating the actions as it used to be and
+ * from the attack bitboards as it is now
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({"INITIAL", "MIDDLE_GAME", "END_GAME"})
+    public Positions position;
+
+    protected Game game;
+
+    protected Board board;
+
+    protected Player botPlayer;
+
+    protected Player humanPlayer;
+
+    @Setup
+    public void setUp() {
+        this.game = new Game();
+        this.board = this.position.parse(true).getBoard();
+        this.botPlayer = new Player(this.board, true);
+        this.humanPlayer = new Player(this.board, false);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return this.game.evaluate(this.board);
+    }
+
+    @Benchmark
+    public int mobilityFromActions() {
+        return this.botPlayer.actions(this.humanPlayer).size() - this.humanPlayer.actions(this.botPlayer).size();
+    }
+
+    @Benchmark
+    public int mobilityFromAttacks() {
+        return this.botPlayer.countMobility(this.humanPlayer) - this.humanPlayer.countMobility(this.botPlayer);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import game.Action;
+import game.Board;
+import game.Game;
+import game.MoveGenerator;
+import game.State;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of generating the actions of a board and of applying one of them, and of generating the moves of a board
+ * into an array as the search does, which should allocate nothing
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    @Param({"INITIAL", "MIDDLE_GAME", "END_GAME"})
+    public Positions position;
+
+    protected Game game;
+
+    protected State state;
+
+    protected Board board;
+
+    protected Action action;
+
+    protected int[] moves;
+
+    @Setup
+    public void setUp() {
+        this.game = new Game();
+        this.state = this.position.parse(true);
+        this.board = this.state.getBoard().clone();
+        this.action = this.game.actions(this.state).iterator().next();
+        this.moves = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    @Benchmark
+    public Collection<Action> actionsOfState() {
+        return this.game.actions(this.state);
+    }
+
+    @Benchmark
+    public Collection<Action> actionsOfBoard() {
+        return this.game.actions(this.board);
+    }
+
+    @Benchmark
+    public int movesOfBoard() {
+        return MoveGenerator.generate(this.board, this.moves);
+    }
+
+    @Benchmark
+    public State result() {
+        return this.game.result(this.state, this.action);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import game.State;
+
+/**
+ * The fixed boards the benchmarks run on, so results are comparable between runs
+ */
+public enum Positions {
+
+    INITIAL(new State().toString()),
+
+    MIDDLE_GAME("""
+            ♜□♝♚♛□□♜
+            ♟♟□□♝♟♟♟
+            □□♞♟□♞□□
+            □□♟□♟□□□
+            □□♙□♙□□□
+            □□♘♙□♘□□
+            ♙♙□□♗♙♙♙
+            ♖□♗♔♕□□♖
+            """),
+
+    END_GAME("""
+            □□□♚□□□□
+            ♟♟□□□♟□□
+            □□♜□□□♟□
+            □□□♞□□□♟
+            □□♙□□♗□□
+            □♙□□♖□□□
+            ♙□□□□♙♙♙
+            □□□♔□□□□
+            """);
+
+    private final String board;
+
+    Positions(String board) {
+        this.board = board;
+    }
+
+    /**
+     * Get the board string of the position
+     * @return the board string
+     */
+    public String getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Parse the position into a state
+     * @param isBotTurn whether it is a bot turn or not
+     * @return the state
+     */
+    public State parse(boolean isBotTurn) {
+        return State.parse(this.board, isBotTurn);
+    }
+}
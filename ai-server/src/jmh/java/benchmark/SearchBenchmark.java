@@ -0,0 +1,63 @@
+package benchmark;
+
+import game.Bot;
+import game.DecisionRecord;
+import game.State;
+import game.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a whole decision of the bot at fixed depths. Each decision starts from an empty transposition table,
+ * so the runs do not feed each other. The nodes counter reports the nodes expanded per decision, which gives the
+ * allocation per node when divided into the gc.alloc.rate.norm of the gc profiler.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    protected static final long TABLE_SIZE = 16L << 20;
+
+    @Param({"MIDDLE_GAME", "END_GAME"})
+    public Positions position;
+
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    protected State state;
+
+    protected TranspositionTable transpositionTable;
+
+    /**
+     * The search statistics reported next to the time of each decision
+     */
+    @org.openjdk.jmh.annotations.State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        this.state = this.position.parse(true);
+        this.transpositionTable = new TranspositionTable(TABLE_SIZE);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        this.transpositionTable.clear();
+    }
+
+    @Benchmark
+    public DecisionRecord decide(Counters counters) {
+        DecisionRecord decisionRecord = new Bot(this.depth, this.transpositionTable, 1).decide(this.state);
+        counters.nodes += decisionRecord.numNodesExpanded();
+        return decisionRecord;
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import game.State;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of reading a board from a request and writing the state into a response
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"INITIAL", "MIDDLE_GAME", "END_GAME"})
+    public Positions position;
+
+    protected String board;
+
+    protected State state;
+
+    @Setup
+    public void setUp() {
+        this.board = this.position.getBoard();
+        this.state = this.position.parse(true);
+    }
+
+    @Benchmark
+    public State parse() {
+        return State.parse(this.board, true);
+    }
+
+    @Benchmark
+    public ObjectNode toJSON() {
+        return this.state.toJSON();
+    }
+}
@@ -0,0 +1,35 @@
+package api;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * The timeout of the asynchronous requests that do not set their own. The decisions, the streams and perft set theirs
+ * from their time limits, so it is the timeout of the batches, which would otherwise be cut off after the 30 seconds
+ * of the servlet container.
+ */
+@Configuration
+public class AsyncConfiguration implements WebMvcConfigurer {
+
+    /**
+     * The system property that sets the minutes a batch can take before it is cut off
+     */
+    public static final String BATCH_TIMEOUT_PROPERTY = "engine.batch.timeout";
+
+    protected static final int DEFAULT_BATCH_TIMEOUT_MINUTES = 10;
+
+    protected final Duration batchTimeout;
+
+    public AsyncConfiguration() {
+        this.batchTimeout = Duration.ofMinutes(
+                Math.max(1, Integer.getInteger(BATCH_TIMEOUT_PROPERTY, DEFAULT_BATCH_TIMEOUT_MINUTES)));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(this.batchTimeout.toMillis());
+    }
+}
@@ -0,0 +1,323 @@
+package api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import game.Bot;
+import game.DecisionRecord;
+import game.Game;
+import game.PawnHashTable;
+import game.SearchControl;
+import game.SearchThreads;
+import game.State;
+import game.TranspositionTable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+@CrossOrigin
+@RequestMapping("api/batch")
+@RestController
+public class BatchController {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The system property that sets the number of threads of the batches, which is also the most threads one batch
+     * can take. It is the number of processors by default
+     */
+    public static final String THREADS_PROPERTY = "engine.batch.threads";
+
+    /**
+     * The system property that sets the size of the transposition table of each thread of the batches, such as 16m
+     */
+    public static final String HASH_PROPERTY = "engine.batch.hash";
+
+    /**
+     * The system property that sets the most nodes each decision of the batches can visit, which is also the node
+     * limit of a line without one, so no line can keep its thread searching without end
+     */
+    public static final String NODES_PROPERTY = "engine.batch.nodes";
+
+    protected static final String DEFAULT_HASH_SIZE = "16m";
+
+    protected static final long DEFAULT_MAX_NODES = 1_000_000L;
+
+    protected static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * The number of lines each thread can have in progress or waiting to be written, so a batch reads ahead of the
+     * slowest line without holding the whole batch in memory
+     */
+    protected static final int MAX_PENDING_LINES_PER_THREAD = 4;
+
+    protected final ObjectMapper objectMapper;
+
+    /**
+     * The threads every batch runs on, so the batches together never search on more threads than this
+     */
+    protected final ForkJoinPool pool;
+
+    /**
+     * The threads the batches share with the decisions, of which a batch only takes the ones that are free
+     */
+    protected final SearchThreads searchThreads;
+
+    /**
+     * The engine of each thread of the pool
+     */
+    protected final ThreadLocal<Engine> engines;
+
+    public BatchController(ObjectMapper objectMapper, SearchExecutor searchExecutor) {
+        long hashSizeInBytes = TranspositionTable.parseSize(System.getProperty(HASH_PROPERTY, DEFAULT_HASH_SIZE));
+        int numThreads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+        long maxNodes = Math.max(1L, Long.getLong(NODES_PROPERTY, DEFAULT_MAX_NODES));
+
+        this.objectMapper = objectMapper;
+        this.pool = new ForkJoinPool(numThreads);
+        this.searchThreads = searchExecutor.getSearchThreads();
+        this.engines = ThreadLocal.withInitial(() -> new Engine(hashSizeInBytes, maxNodes, this.searchThreads));
+    }
+
+    /**
+     * One line of a batch. Without an intelligence level the board is evaluated, and with one the bot decides its
+     * action on one thread.
+     * @param board the board
+     * @param isBotTurn whether it is a bot turn on the board to evaluate or not. The human moves first by default
+     * @param intelligenceLevel the intelligence level of the decision, or null to evaluate. Must be at least 0
+     * @param nodeLimit the number of nodes the decision can visit, or null for the most nodes a decision of a batch
+     *                  can visit. With it, the decision starts from an empty table, so it does not depend on the lines
+     *                  decided before it on the same worker. Must be between 1 and that most
+     */
+    public record BatchLine(String board, @Nullable Boolean isBotTurn, @Nullable Integer intelligenceLevel,
+                            @Nullable Long nodeLimit) {}
+
+    /**
+     * The result of one line of a batch, which has either the evaluation, the decision or the error
+     * @param index the index of the line among the lines of the batch that are not blank, from 0
+     * @param evaluation the evaluated value of the board
+     * @param decision the decision
+     * @param error the reason the line has no result
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchResult(long index, @Nullable Double evaluation, @Nullable DecisionRecord decision,
+                              @Nullable String error) {}
+
+    /**
+     * Evaluate or decide every line of the body, which is one JSON object per line such as
+     * {"board": "...", "intelligenceLevel": 3}. The lines are worked on in parallel, and the results are written as
+     * one JSON object per line in the order of the lines as soon as each is ready. A line that fails only fails its
+     * own result. A batch works on as many lines at once as there are search threads left free by the decisions, up
+     * to the number of threads of the batches. A batch that runs past the timeout of AsyncConfiguration stops reading lines, and the lines already
+     * started are left to end within their node limits.
+     * @param body the lines
+     * @return the results
+     * @throws ResponseStatusException with SERVICE_UNAVAILABLE if every search thread is busy
+     */
+    @PostMapping(produces = NDJSON)
+    public StreamingResponseBody batch(InputStream body) {
+        int numThreads = this.searchThreads.reserve(this.pool.getParallelism());
+        if (numThreads == 0) {
+            logger.warn("Rejected a batch: all {} search threads are busy.", this.searchThreads.getMaxThreads());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The engine is busy. Try again later.");
+        }
+
+        return outputStream -> {
+            // each lane works on its lines one after another, so the batch never takes more threads than it reserved
+            CompletableFuture<?>[] lanes = new CompletableFuture<?>[numThreads];
+            Arrays.fill(lanes, CompletableFuture.completedFuture(null));
+
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                Queue<CompletableFuture<BatchResult>> pending = new ArrayDeque<>();
+                int maxPending = numThreads * MAX_PENDING_LINES_PER_THREAD;
+
+                long numLines = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+
+                    long index = numLines++;
+                    String text = line;
+                    int lane = (int) (index % numThreads);
+                    CompletableFuture<BatchResult> result = lanes[lane].thenApplyAsync(
+                            previous -> this.searchThreads.runOnReservedThread(() -> this.process(index, text)), this.pool);
+                    lanes[lane] = result;
+                    pending.add(result);
+
+                    if (pending.size() >= maxPending) {
+                        this.write(writer, await(pending.remove()));
+                        // flush at once when nothing else is ready, so the client sees the results as they come
+                        if (!pending.peek().isDone()) {
+                            writer.flush();
+                        }
+                    }
+                }
+
+                while (!pending.isEmpty()) {
+                    this.write(writer, await(pending.remove()));
+                }
+                writer.flush();
+
+                logger.info("Answered a batch of {} lines on {} threads", numLines, numThreads);
+            } finally {
+                // the threads are freed when the lines already started end, even if the batch stopped before them
+                CompletableFuture.allOf(lanes).whenComplete((result, e) -> this.searchThreads.release(numThreads));
+            }
+        };
+    }
+
+    /**
+     * Wait for the result of a line
+     * @param result the result
+     * @return the result when it is ready
+     * @throws InterruptedIOException if the batch is interrupted, such as when it times out
+     */
+    protected static BatchResult await(CompletableFuture<BatchResult> result) throws InterruptedIOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The batch was interrupted while waiting for a line.");
+        } catch (ExecutionException e) {
+            // process answers every failure of a line with its result
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Write the given result as one line
+     * @param writer the writer of the response
+     * @param batchResult the result
+     * @throws IOException if the response cannot be written
+     */
+    protected void write(Writer writer, BatchResult batchResult) throws IOException {
+        writer.write(this.objectMapper.writeValueAsString(batchResult));
+        writer.write('\n');
+    }
+
+    /**
+     * Evaluate or decide one line on the engine of the current thread
+     * @param index the index of the line
+     * @param text the line
+     * @return the result
+     */
+    protected BatchResult process(long index, String text) {
+        try {
+            BatchLine batchLine = this.objectMapper.readValue(text, BatchLine.class);
+            Engine engine = this.engines.get();
+
+            if (batchLine.board() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "board is required.");
+            } else if (batchLine.intelligenceLevel() == null) {
+                return new BatchResult(index, engine.evaluate(batchLine), null, null);
+            }
+            return new BatchResult(index, null, engine.decide(batchLine), null);
+        } catch (JsonProcessingException e) {
+            return new BatchResult(index, null, null, "The line is not a JSON object of a board: " + e.getOriginalMessage());
+        } catch (ResponseStatusException e) {
+            return new BatchResult(index, null, null, e.getReason());
+        } catch (RuntimeException e) {
+            return new BatchResult(index, null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * The engine of one thread, which keeps its tables and bots between the lines it works on
+     */
+    protected static class Engine {
+
+        protected final Game game;
+
+        protected final PawnHashTable pawnHashTable;
+
+        protected final TranspositionTable transpositionTable;
+
+        /**
+         * The bots indexed by their intelligence level
+         */
+        protected final Map<Integer, Bot> bots;
+
+        /**
+         * The most nodes a decision can visit
+         */
+        protected final long maxNodes;
+
+        protected final SearchThreads searchThreads;
+
+        protected Engine(long hashSizeInBytes, long maxNodes, SearchThreads searchThreads) {
+            this.game = new Game();
+            this.pawnHashTable = new PawnHashTable();
+            this.transpositionTable = new TranspositionTable(hashSizeInBytes);
+            this.bots = new HashMap<>();
+            this.maxNodes = maxNodes;
+            this.searchThreads = searchThreads;
+        }
+
+        /**
+         * Evaluate the board of the given line
+         * @param batchLine the line
+         * @return the evaluated value, or the utility if the game is over
+         */
+        protected double evaluate(BatchLine batchLine) {
+            State state = State.parse(batchLine.board(), Boolean.TRUE.equals(batchLine.isBotTurn()));
+            if (this.game.isTerminal(state.getBoard())) {
+                return this.game.utility(state.getBoard());
+            }
+            return this.game.evaluate(state.getBoard(), this.pawnHashTable);
+        }
+
+        /**
+         * Decide the action of the bot on the board of the given line
+         * @param batchLine the line
+         * @return the decision
+         */
+        protected DecisionRecord decide(BatchLine batchLine) {
+            int intelligenceLevel = batchLine.intelligenceLevel();
+            if (intelligenceLevel < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "intelligenceLevel cannot be less than 0. Given: " + intelligenceLevel);
+            } else if (batchLine.nodeLimit() != null && batchLine.nodeLimit() < 1) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "nodeLimit cannot be less than 1. Given: " + batchLine.nodeLimit());
+            } else if (batchLine.nodeLimit() != null && batchLine.nodeLimit() > this.maxNodes) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "nodeLimit cannot be more than " + this.maxNodes + ". Given: " + batchLine.nodeLimit());
+            }
+
+            State state = State.parse(batchLine.board(), true);
+            if (batchLine.nodeLimit() != null) {
+                this.transpositionTable.clear();
+            }
+            Bot bot = this.bots.computeIfAbsent(intelligenceLevel, level -> new Bot(level, this.transpositionTable, 1, this.searchThreads));
+            DecisionRecord decisionRecord = bot.decide(state, new SearchControl(null, batchLine.nodeLimit() == null ? this.maxNodes : batchLine.nodeLimit()));
+
+            if (decisionRecord == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The bot has no action to take on the given board.");
+            }
+            return decisionRecord;
+        }
+    }
+}
@@ -1,21 +1,34 @@
 package api;
 
+import game.Action;
+import game.BoardCodec;
 import game.Bot;
 import game.DecisionRecord;
+import game.Game;
+import game.IterationRecord;
+import game.Move;
+import game.OpeningBook;
+import game.SearchControl;
+import game.SearchSession;
 import game.State;
+import game.TranspositionTable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import piece.Queen;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.Stack;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @CrossOrigin
 @RequestMapping("api/decision")
@@ -24,60 +37,278 @@ public class DecisionController {
 
     private static final Logger logger = LogManager.getLogger();
 
+    protected static final Game game = new Game();
+
+    /**
+     * The time a request is kept open after the time limit of its search, for the search to wait for a thread,
+     * finish its last node and send its decision
+     */
+    protected static final long TIMEOUT_MARGIN_MILLIS = 5000;
+
+    protected final SearchMetrics searchMetrics;
+
+    protected final SearchSessions searchSessions;
+
+    /**
+     * The threads the searches run on, so they do not hold the threads of the requests
+     */
+    protected final SearchExecutor searchExecutor;
+
+    public DecisionController(SearchMetrics searchMetrics, SearchSessions searchSessions, SearchExecutor searchExecutor) {
+        this.searchMetrics = searchMetrics;
+        this.searchSessions = searchSessions;
+        this.searchExecutor = searchExecutor;
+    }
+
     /**
      * Return the AI's decision from the given board
      * @param intelligenceLevel the intelligence level of the AI. Must be at least 0
      * @param board the board
      * @param timeLimit the time limit the bot can think in seconds. Must be at least 5
-     * @return the decision with relevant information
+     * @param nodeLimit the number of nodes the bot can visit. With it, the bot searches on one thread from an empty
+     *                  table, so the same request decides the same action. Must be at least 1
+     * @param threads the number of threads the bot searches with. Must be between 1 and the number of processors
+     * @param gameId the id of the game, which keeps the transposition table and principal variation of the game
+     *               between decisions. Must be 1 to 64 letters, digits, - or _
+     * @param ponder whether the bot keeps searching the board of the reply it expects until the next decision or not.
+     *               Needs a gameId
+     * @return the decision with relevant information, which is answered once the search ends. The request is
+     *         rejected with SERVICE_UNAVAILABLE if too many searches are running and waiting already
      */
     @GetMapping
-    public DecisionRecord decision(@RequestParam int intelligenceLevel, @RequestParam String board, @RequestParam Optional<Integer> timeLimit) {
-        if (intelligenceLevel < 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "intelligenceLevel cannot be less than 0. Given: " + intelligenceLevel);
-        } else if (timeLimit.isPresent() && timeLimit.get() < 5) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "timeLimit cannot be less than 5. Given: " + timeLimit.get());
+    public DeferredResult<DecisionRecord> decision(@RequestParam int intelligenceLevel, @RequestParam String board, @RequestParam Optional<Integer> timeLimit,
+                                   @RequestParam Optional<Long> nodeLimit, @RequestParam Optional<Integer> threads,
+                                   @RequestParam Optional<String> gameId, @RequestParam Optional<Boolean> ponder) {
+        long startTime = System.nanoTime();
+
+        DecisionRequest request = new DecisionRequest(intelligenceLevel, board, timeLimit.orElse(null),
+                nodeLimit.orElse(null), threads.orElse(null), gameId.orElse(null), ponder.orElse(null));
+        request.validate();
+
+        SearchControl control = request.control();
+        DeferredResult<DecisionRecord> deferredResult = new DeferredResult<>(this.timeoutOf(request));
+        deferredResult.onCompletion(control::abort);
+        deferredResult.onTimeout(control::abort);
+        deferredResult.onError(throwable -> control.abort());
+
+        this.searchExecutor.submit(() -> this.decide(request, control, null, startTime))
+                .whenComplete((decisionRecord, throwable) -> {
+                    if (throwable == null) {
+                        deferredResult.setResult(decisionRecord);
+                    } else {
+                        // the failure of the search comes wrapped, and the status of the request is on its cause
+                        deferredResult.setErrorResult(throwable instanceof CompletionException && throwable.getCause() != null
+                                ? throwable.getCause()
+                                : throwable);
+                    }
+                });
+
+        return deferredResult;
+    }
+
+    /**
+     * Return the AI's decision from the given board in the 32 bytes of the binary format
+     * @param board the board
+     * @param intelligenceLevel the intelligence level of the AI. Must be at least 0
+     * @param timeLimit the time limit the bot can think in seconds. Must be at least 5
+     * @param nodeLimit the number of nodes the bot can visit. With it, the bot searches on one thread from an empty
+     *                  table, so the same request decides the same action. Must be at least 1
+     * @param threads the number of threads the bot searches with. Must be between 1 and the number of processors
+     * @param gameId the id of the game, which keeps the transposition table and principal variation of the game
+     *               between decisions. Must be 1 to 64 letters, digits, - or _
+     * @param ponder whether the bot keeps searching the board of the reply it expects until the next decision or not.
+     *               Needs a gameId
+     * @return the decision with relevant information, which is answered once the search ends
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public DeferredResult<DecisionRecord> decision(@RequestBody byte[] board, @RequestParam int intelligenceLevel,
+                                                   @RequestParam Optional<Integer> timeLimit, @RequestParam Optional<Long> nodeLimit,
+                                                   @RequestParam Optional<Integer> threads, @RequestParam Optional<String> gameId,
+                                                   @RequestParam Optional<Boolean> ponder) {
+        if (board.length != BoardCodec.BINARY_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The board must be " + BoardCodec.BINARY_SIZE + " bytes. Given: " + board.length);
         }
 
-        State state = State.parse(board, true);
+        return this.decision(intelligenceLevel, Base64.getUrlEncoder().encodeToString(board), timeLimit, nodeLimit,
+                threads, gameId, ponder);
+    }
+
+    /**
+     * Get the time a request is kept open
+     * @param request the request
+     * @return the timeout in milliseconds, or 0 for no timeout if the search has no time limit
+     */
+    protected long timeoutOf(DecisionRequest request) {
+        return request.timeLimit() == null ? 0L : request.timeLimit() * 1000L + TIMEOUT_MARGIN_MILLIS;
+    }
+
+    /**
+     * Stream the progress of the AI's decision from the given board as server-sent events: an iteration event with
+     * the best action, value, principal variation and nodes of each completed depth, then a decision event with the
+     * decision, or an error event if there is none. The search runs on its own thread, and is aborted when the client
+     * disconnects, so a client can take the best action so far and close the stream.
+     * @param intelligenceLevel the intelligence level of the AI. Must be at least 0
+     * @param board the board
+     * @param timeLimit the time limit the bot can think in seconds. Must be at least 5
+     * @param nodeLimit the number of nodes the bot can visit. With it, the bot searches on one thread from an empty
+     *                  table, so the same request decides the same action. Must be at least 1
+     * @param threads the number of threads the bot searches with. Must be between 1 and the number of processors
+     * @param gameId the id of the game, which keeps the transposition table and principal variation of the game
+     *               between decisions. Must be 1 to 64 letters, digits, - or _
+     * @param ponder whether the bot keeps searching the board of the reply it expects until the next decision or not.
+     *               Needs a gameId
+     * @return the stream of events. The request is rejected with SERVICE_UNAVAILABLE if too many searches are running
+     *         and waiting already
+     */
+    @GetMapping("stream")
+    public SseEmitter decisionStream(@RequestParam int intelligenceLevel, @RequestParam String board, @RequestParam Optional<Integer> timeLimit,
+                                     @RequestParam Optional<Long> nodeLimit, @RequestParam Optional<Integer> threads,
+                                     @RequestParam Optional<String> gameId, @RequestParam Optional<Boolean> ponder) {
+        long startTime = System.nanoTime();
+
+        DecisionRequest request = new DecisionRequest(intelligenceLevel, board, timeLimit.orElse(null),
+                nodeLimit.orElse(null), threads.orElse(null), gameId.orElse(null), ponder.orElse(null));
+        request.validate();
+
+        SearchControl control = request.control();
+        SseEmitter emitter = new SseEmitter(this.timeoutOf(request));
+        emitter.onCompletion(control::abort);
+        emitter.onTimeout(control::abort);
+        emitter.onError(throwable -> control.abort());
+
+        this.searchExecutor.execute(() -> {
+            try {
+                DecisionRecord decisionRecord = this.decide(request, control,
+                        iterationRecord -> this.send(emitter, control, "iteration", iterationRecord), startTime);
+                this.send(emitter, control, "decision", decisionRecord);
+            } catch (ResponseStatusException e) {
+                this.send(emitter, control, "error", e.getReason());
+            } catch (RuntimeException e) {
+                logger.error("The streamed decision failed.", e);
+                this.send(emitter, control, "error", "The decision failed.");
+            }
+            emitter.complete();
+        });
+
+        return emitter;
+    }
+
+    /**
+     * Send an event to the client of a stream, aborting the search if the client is gone
+     * @param emitter the stream
+     * @param control the limits of the search
+     * @param name the name of the event
+     * @param data the data of the event
+     */
+    protected void send(SseEmitter emitter, SearchControl control, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            logger.info("The client of the stream is gone, so the search is aborted.");
+            control.abort();
+        }
+    }
+
+    /**
+     * Decide the action of the given request, from the opening book, the ponder search of its game, or a search
+     * @param request the request, which is valid
+     * @param control the limits of the search
+     * @param iterationListener the listener told about each iteration the search completes, or null
+     * @param startTime the time the request was received in System.nanoTime
+     * @return the decision
+     * @throws ResponseStatusException with BAD_REQUEST if there is no action to take
+     */
+    protected DecisionRecord decide(DecisionRequest request, SearchControl control,
+                                    @Nullable Consumer<IterationRecord> iterationListener, long startTime) {
+        int intelligenceLevel = request.intelligenceLevel();
+        State state = State.parse(request.board(), true);
 
         logger.info("Received intelligenceLevel: {}", intelligenceLevel);
-        logger.info("Received timeLimit: {}", timeLimit);
+        logger.info("Received timeLimit: {}", request.timeLimit());
+        logger.info("Received nodeLimit: {}", request.nodeLimit());
+        logger.info("Received threads: {}", request.threads());
+        logger.info("Received gameId: {}", request.gameId());
+        logger.info("Received ponder: {}", request.ponder());
         logger.info("Received state:\n{}", state);
-        logger.info("Thinking...");
 
-        Stack<DecisionRecord> decisionStack = new Stack<>();
+        SearchSession session = request.gameId() == null ? null : this.searchSessions.get(request.gameId());
+
+        Optional<Action> bookAction = OpeningBook.getShared().find(state.getBoard());
+        if (bookAction.isPresent()) {
+            if (session != null) {
+                session.stopPondering();
+            }
+
+            DecisionRecord decisionRecord = this.decideFromBook(state, bookAction.get(), startTime);
+            logger.info("Moved {} to {} from the opening book.", decisionRecord.actionTaken().piece().toString(),
+                    decisionRecord.actionTaken());
+
+            this.searchMetrics.record(intelligenceLevel, SearchMetrics.Source.BOOK, decisionRecord,
+                    Duration.ofNanos(System.nanoTime() - startTime));
+            return decisionRecord;
+        }
+
+        // a repeatable search cannot take the decision of a ponder search, which depends on when it was stopped
+        Optional<DecisionRecord> ponderDecision = session == null || request.isRepeatable()
+                ? Optional.empty()
+                : session.takePonderDecision(state.getBoard(), intelligenceLevel);
+        if (session != null && request.isRepeatable()) {
+            session.stopPondering();
+        }
 
-        if (timeLimit.isEmpty()) {
-            decisionStack.push(new Bot(intelligenceLevel).decide(state));
+        DecisionRecord decisionRecord;
+        SearchMetrics.Source source = ponderDecision.isPresent() ? SearchMetrics.Source.PONDER : SearchMetrics.Source.SEARCH;
+        if (ponderDecision.isPresent()) {
+            decisionRecord = ponderDecision.get();
+            logger.info("Took the decision of the ponder search.");
         } else {
-            // decide with iterative intelligence level
-            List<CompletableFuture<?>> futures = new LinkedList<>();
-            for (int i = 0; i < intelligenceLevel+1; i++) {
-                final int currentIntelligenceLevel = i;
-                CompletableFuture<?> future =
-                        CompletableFuture.supplyAsync(() -> new Bot(currentIntelligenceLevel).decide(state))
-                                .thenApply(decisionStack::push)
-                                .orTimeout(timeLimit.get(), TimeUnit.SECONDS)
-                                .exceptionally(e -> {
-                                    if (!(e instanceof TimeoutException)) {
-                                        logger.error(e);
-                                    }
-                                    return null;
-                                });
-                futures.add(future);
+            logger.info("Thinking...");
+
+            // a repeatable search starts from an empty table instead of the table of the game
+            boolean usesSession = session != null && !request.isRepeatable();
+            TranspositionTable transpositionTable = usesSession ? session.getTranspositionTable() : TranspositionTable.ofDefaultSize();
+            int expectedMove = usesSession ? session.expectedMove(state.getBoard()) : Move.NO_MOVE;
+
+            Bot bot = new Bot(intelligenceLevel, transpositionTable, request.numThreads(), this.searchExecutor.getSearchThreads());
+            bot.setIterationListener(iterationListener);
+            decisionRecord = bot.decide(state, control, expectedMove);
+
+            if (decisionRecord == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The bot has no action to take on the given board.");
+            }
+
+            if (session != null) {
+                session.update(state.getBoard(), bot.getPrincipalVariation());
             }
-            futures.forEach(CompletableFuture::join);
         }
 
-        DecisionRecord decisionRecord = decisionStack.pop();
+        if (session != null && request.isPondering()) {
+            session.startPondering(intelligenceLevel, this.searchSessions.getPonderBudget(), this.searchExecutor.getSearchThreads());
+        }
 
-        logger.info("Moved {} to {} with Minimax value: {} after {} seconds, expanding {} nodes.",
+        logger.info("Moved {} to {} with Minimax value: {} after {} seconds, expanding {} nodes to depth {} on {} threads ({} nodes/s).",
                 decisionRecord.actionTaken().piece().toString(), decisionRecord.actionTaken(), decisionRecord.minimaxValue(),
-                (decisionRecord.timeTaken().toMillis() / 1000.0), decisionRecord.numNodesExpanded());
+                (decisionRecord.timeTaken().toMillis() / 1000.0), decisionRecord.numNodesExpanded(),
+                decisionRecord.depthReached(), decisionRecord.numThreads(), Math.round(decisionRecord.nodesPerSecond()));
 
         logger.info("Result:{}", decisionRecord.result());
 
+        this.searchMetrics.record(intelligenceLevel, source, decisionRecord, Duration.ofNanos(System.nanoTime() - startTime));
+
         return decisionRecord;
     }
+
+    /**
+     * Take the given action of the opening book without searching
+     * @param state the state
+     * @param action the action of the book
+     * @param startTime the time the request was received in System.nanoTime
+     * @return the decision
+     */
+    protected DecisionRecord decideFromBook(State state, Action action, long startTime) {
+        State nextState = game.result(state, action, Queen.BLACK_ICON);
+        double value = nextState.isTerminal() ? game.utility(nextState) : game.evaluate(nextState);
+        return DecisionRecord.fromBook(Duration.ofNanos(System.nanoTime() - startTime), value, action, nextState.toJSON());
+    }
 }
@@ -0,0 +1,101 @@
+package api;
+
+import game.Bot;
+import game.SearchControl;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * The parameters of a request for a decision
+ * @param intelligenceLevel the intelligence level of the AI. Must be at least 0
+ * @param board the board
+ * @param timeLimit the time limit the bot can think in seconds, or null for no limit. Must be at least 5
+ * @param nodeLimit the number of nodes the bot can visit, or null for no limit. With it, the bot searches on one thread
+ *                  from an empty table, ignoring the threads and the table and pondering of the game, so the same
+ *                  request decides the same action unless the time limit stops it first. Must be at least 1
+ * @param threads the number of threads the bot searches with, or null for the default. Must be between 1 and the
+ *                number of processors
+ * @param gameId the id of the game, which keeps the transposition table and principal variation of the game between
+ *               decisions, or null. Must be 1 to 64 letters, digits, - or _
+ * @param ponder whether the bot keeps searching the board of the reply it expects until the next decision or not.
+ *               Needs a gameId
+ */
+public record DecisionRequest(
+        int intelligenceLevel,
+        String board,
+        @Nullable Integer timeLimit,
+        @Nullable Long nodeLimit,
+        @Nullable Integer threads,
+        @Nullable String gameId,
+        @Nullable Boolean ponder
+) {
+
+    protected static final Pattern GAME_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * Check the parameters
+     * @throws ResponseStatusException with BAD_REQUEST if a parameter is invalid
+     */
+    public void validate() {
+        int numProcessors = Runtime.getRuntime().availableProcessors();
+
+        if (this.board == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "board is required.");
+        } else if (this.intelligenceLevel < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "intelligenceLevel cannot be less than 0. Given: " + this.intelligenceLevel);
+        } else if (this.timeLimit != null && this.timeLimit < 5) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "timeLimit cannot be less than 5. Given: " + this.timeLimit);
+        } else if (this.nodeLimit != null && this.nodeLimit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "nodeLimit cannot be less than 1. Given: " + this.nodeLimit);
+        } else if (this.threads != null && (this.threads < 1 || this.threads > numProcessors)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "threads must be between 1 and " + numProcessors + ". Given: " + this.threads);
+        } else if (this.gameId != null && !GAME_ID_PATTERN.matcher(this.gameId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "gameId must be 1 to 64 letters, digits, - or _. Given: " + this.gameId);
+        } else if (this.isPondering() && this.gameId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ponder needs a gameId.");
+        }
+    }
+
+    /**
+     * Check if the bot should ponder after the decision
+     * @return true if it should, false otherwise
+     */
+    public boolean isPondering() {
+        return Boolean.TRUE.equals(this.ponder);
+    }
+
+    /**
+     * Check if the search must decide the same action every time it is given the same request, which is when it has
+     * a node limit
+     * @return true if it must, false otherwise
+     */
+    public boolean isRepeatable() {
+        return this.nodeLimit != null;
+    }
+
+    /**
+     * Get the number of threads to search with, which is one for a repeatable search, since the helper threads make
+     * the search depend on how they are scheduled
+     * @return the number of threads
+     */
+    public int numThreads() {
+        if (this.isRepeatable()) {
+            return 1;
+        }
+        return this.threads == null ? Bot.getDefaultNumThreads() : this.threads;
+    }
+
+    /**
+     * Create the control of the limits of the search
+     * @return the control
+     */
+    public SearchControl control() {
+        return new SearchControl(this.timeLimit == null ? null : Duration.ofSeconds(this.timeLimit), this.nodeLimit);
+    }
+}
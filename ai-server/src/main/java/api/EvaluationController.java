@@ -1,9 +1,11 @@
 package api;
 
+import game.BoardCodec;
 import game.Game;
 import game.State;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 @RequestMapping("api/evaluation")
@@ -20,4 +22,16 @@ public class EvaluationController {
         logger.info("Received Data: {}", board);
         return game.evaluate(State.parse(board, false));
     }
+
+    /**
+     * Return the evaluation of the given board in the 32 bytes of the binary format, where it is the human turn
+     * @param board the board
+     * @return the evaluation
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public double evaluation(@RequestBody byte[] board) {
+        State state = new State(BoardCodec.fromBinary(board));
+        state.getBoard().setBotTurn(false);
+        return game.evaluate(state);
+    }
 }
@@ -1,10 +1,15 @@
 package api;
 
+import game.BoardCodec;
 import game.Game;
+import game.State;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @CrossOrigin
 @RequestMapping("api/initial-board")
@@ -13,8 +18,19 @@ public class InitialBoardController {
 
     protected static final Game game = new Game();
 
+    /**
+     * Return the initial board
+     * @param format the format of the board, which is text, fen or binary for base64 of the binary format
+     * @return the board
+     */
     @GetMapping
-    public String initialBoard() {
-        return game.getInitialState().toString();
+    public String initialBoard(@RequestParam(defaultValue = "text") String format) {
+        State state = game.getInitialState();
+        return switch (format) {
+            case "text" -> state.toString();
+            case "fen" -> BoardCodec.toFen(state.getBoard());
+            case "binary" -> BoardCodec.toBase64(state.getBoard());
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be text, fen or binary. Given: " + format);
+        };
     }
 }
@@ -0,0 +1,102 @@
+package api;
+
+import game.Perft;
+import game.PerftRecord;
+import game.SearchControl;
+import game.State;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+@CrossOrigin
+@RequestMapping("api/perft")
+@RestController
+public class PerftController {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The maximum depth, since the number of leaves grows about thirty times with each depth. The command line of
+     * Perft counts deeper.
+     */
+    protected static final int MAX_DEPTH = 5;
+
+    /**
+     * The time a count can take before it is stopped
+     */
+    protected static final Duration TIME_LIMIT = Duration.ofSeconds(10);
+
+    /**
+     * The time a request is kept open after the time limit of its count, for the count to wait for a thread
+     */
+    protected static final long TIMEOUT_MARGIN_MILLIS = 5000;
+
+    protected final SearchExecutor searchExecutor;
+
+    public PerftController(SearchExecutor searchExecutor) {
+        this.searchExecutor = searchExecutor;
+    }
+
+    /**
+     * Return the number of leaves of the tree of actions from the given board to the given depth. The count runs on
+     * one thread of the search executor, so it waits for a thread like a decision, and it is stopped after the time
+     * limit.
+     * @param board the board
+     * @param depth the depth. Must be between 0 and 5
+     * @param isBotTurn whether the bot moves first. The human moves first by default
+     * @return the count with the time taken
+     * @throws ResponseStatusException with SERVICE_UNAVAILABLE if every search thread is busy and the queue is full
+     */
+    @GetMapping
+    public DeferredResult<PerftRecord> perft(@RequestParam String board, @RequestParam int depth,
+                                             @RequestParam(defaultValue = "false") boolean isBotTurn) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth must be between 0 and " + MAX_DEPTH + ". Given: " + depth);
+        }
+
+        State state = State.parse(board, isBotTurn);
+        SearchControl control = new SearchControl(TIME_LIMIT, null);
+        DeferredResult<PerftRecord> deferredResult = new DeferredResult<>(TIME_LIMIT.toMillis() + TIMEOUT_MARGIN_MILLIS);
+        deferredResult.onCompletion(control::abort);
+        deferredResult.onTimeout(control::abort);
+        deferredResult.onError(throwable -> control.abort());
+
+        this.searchExecutor.submit(() -> this.count(state, depth, control))
+                .whenComplete((perftRecord, throwable) -> {
+                    if (throwable == null) {
+                        deferredResult.setResult(perftRecord);
+                    } else {
+                        deferredResult.setErrorResult(throwable instanceof CompletionException && throwable.getCause() != null
+                                ? throwable.getCause()
+                                : throwable);
+                    }
+                });
+
+        return deferredResult;
+    }
+
+    /**
+     * Count the leaves of the given state to the given depth
+     * @param state the state
+     * @param depth the depth
+     * @param control the limits of the count
+     * @return the count with the time taken
+     * @throws ResponseStatusException with BAD_REQUEST if the count is stopped before it ends
+     */
+    protected PerftRecord count(State state, int depth, SearchControl control) {
+        PerftRecord perftRecord = Perft.run(state.getBoard(), depth, control).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "The count did not end within " + TIME_LIMIT.toSeconds()
+                        + " seconds. Try a lower depth. Given: " + depth));
+
+        logger.info("Counted {} leaves at depth {} after {} seconds.", perftRecord.numLeaves(), depth,
+                perftRecord.timeTaken().toMillis() / 1000.0);
+
+        return perftRecord;
+    }
+}
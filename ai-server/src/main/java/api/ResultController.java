@@ -6,6 +6,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import game.Action;
 import game.Game;
+import game.Move;
+import game.MoveGenerator;
 import game.State;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -56,7 +58,12 @@ public class ResultController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         String.format("A piece at %s not found on the given board.", oldPosition)));
 
-        Action action = new Action(piece, new Position(x, y));
+        Position newPosition = new Position(x, y);
+        Action action = new Action(piece, newPosition);
+        if (!Position.isWithinBound(newPosition) || !MoveGenerator.isValid(state.getBoard(), Move.of(action))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("The piece at %s cannot move there. Given: %s", oldPosition, newPosition));
+        }
 
         return game.result(state, action, promotingIcon).toJSON();
     }
@@ -0,0 +1,108 @@
+package api;
+
+import game.SearchThreads;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The threads the decisions are searched on, so a burst of requests cannot start more searches than the server has
+ * processors for. A search waits in a bounded queue while every thread is busy, and a request is rejected at once
+ * with SERVICE_UNAVAILABLE when the queue is full, instead of waiting behind searches it would time out behind.
+ * The helpers of a search with more than one thread and the ponder searches of the games share the same number of
+ * threads with the searches of this executor, and only start on the threads the searches leave free.
+ */
+@Component
+public class SearchExecutor {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The system property that sets the number of searches that run at the same time, which is the number of
+     * processors by default
+     */
+    public static final String CONCURRENCY_PROPERTY = "engine.search.concurrency";
+
+    /**
+     * The system property that sets the number of searches that can wait for a thread
+     */
+    public static final String QUEUE_PROPERTY = "engine.search.queue";
+
+    protected static final int DEFAULT_QUEUE_SIZE = 16;
+
+    protected final ThreadPoolExecutor executor;
+
+    /**
+     * The threads the searches of this executor, their helpers and the ponder searches take together
+     */
+    protected final SearchThreads searchThreads;
+
+    protected final SearchMetrics searchMetrics;
+
+    public SearchExecutor(SearchMetrics searchMetrics) {
+        this(Math.max(1, Integer.getInteger(CONCURRENCY_PROPERTY, Runtime.getRuntime().availableProcessors())),
+                Math.max(1, Integer.getInteger(QUEUE_PROPERTY, DEFAULT_QUEUE_SIZE)), searchMetrics);
+    }
+
+    public SearchExecutor(int concurrency, int queueSize, SearchMetrics searchMetrics) {
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "search");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.searchThreads = new SearchThreads(concurrency);
+        this.searchMetrics = searchMetrics;
+        this.searchMetrics.registerSearchExecutor(this.executor, this.searchThreads);
+    }
+
+    public SearchThreads getSearchThreads() {
+        return this.searchThreads;
+    }
+
+    /**
+     * Run the given search on a thread of the executor, or queue it if every thread is busy
+     * @param search the search
+     * @param <T> the type of the result of the search
+     * @return the result of the search when it ends
+     * @throws ResponseStatusException with SERVICE_UNAVAILABLE if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> search) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                this.searchThreads.startMainSearch();
+                try {
+                    return search.get();
+                } finally {
+                    this.searchThreads.endMainSearch();
+                }
+            }, this.executor);
+        } catch (RejectedExecutionException e) {
+            this.searchMetrics.recordRejection();
+            logger.warn("Rejected a search: {} searches are running and {} are waiting.",
+                    this.executor.getActiveCount(), this.executor.getQueue().size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The engine is busy. Try again later.");
+        }
+    }
+
+    /**
+     * Run the given search on a thread of the executor, or queue it if every thread is busy
+     * @param search the search
+     * @throws ResponseStatusException with SERVICE_UNAVAILABLE if the queue is full
+     */
+    public void execute(Runnable search) {
+        this.submit(() -> {
+            search.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package api;
+
+import game.DecisionRecord;
+import game.SearchThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Publishes the statistics of the decisions of the bot as meters, which are scraped from /actuator/prometheus.
+ * Every meter of a decision is tagged by its intelligence level.
+ */
+@Component
+public class SearchMetrics {
+
+    /**
+     * The intelligence levels above this one share one tag value, so a client cannot create a meter for every level
+     */
+    protected static final int MAX_TAGGED_INTELLIGENCE_LEVEL = 10;
+
+    protected static final String INTELLIGENCE_LEVEL_TAG = "intelligenceLevel";
+
+    protected static final String SOURCE_TAG = "source";
+
+    protected final MeterRegistry registry;
+
+    public SearchMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Where a decision came from, which tags its latency, since only a search has statistics of its own
+     */
+    public enum Source {
+        SEARCH, BOOK, PONDER
+    }
+
+    /**
+     * Record the given decision. Only a decision searched for the request records the meters of the search, since a
+     * move of the opening book expands no nodes and a ponder decision was searched before the request.
+     * @param intelligenceLevel the intelligence level the decision was requested with
+     * @param source where the decision came from
+     * @param decisionRecord the decision
+     * @param latency the time taken to answer the request
+     */
+    public void record(int intelligenceLevel, Source source, DecisionRecord decisionRecord, Duration latency) {
+        String level = intelligenceLevel > MAX_TAGGED_INTELLIGENCE_LEVEL
+                ? MAX_TAGGED_INTELLIGENCE_LEVEL + "+"
+                : String.valueOf(intelligenceLevel);
+        String sourceName = source.name().toLowerCase();
+
+        Timer.builder("engine.decision.latency")
+                .description("The time taken to answer a request for a decision")
+                .tag(INTELLIGENCE_LEVEL_TAG, level)
+                .tag(SOURCE_TAG, sourceName)
+                .publishPercentileHistogram()
+                .register(this.registry)
+                .record(latency);
+        Counter.builder("engine.decisions")
+                .description("The decisions answered")
+                .tag(INTELLIGENCE_LEVEL_TAG, level)
+                .tag(SOURCE_TAG, sourceName)
+                .register(this.registry)
+                .increment();
+
+        if (source != Source.SEARCH) {
+            return;
+        }
+
+        this.counter("engine.nodes.expanded", "The nodes expanded by the search", level)
+                .increment(decisionRecord.numNodesExpanded());
+        this.counter("engine.tt.probes", "The lookups of the transposition table", level)
+                .increment(decisionRecord.numTranspositionHits() + decisionRecord.numTranspositionMisses());
+        this.counter("engine.tt.hits", "The lookups of the transposition table that found an entry", level)
+                .increment(decisionRecord.numTranspositionHits());
+        this.counter("engine.cutoffs", "The beta cutoffs of the search", level)
+                .increment(decisionRecord.numCutoffs());
+        this.counter("engine.cutoffs.first.move", "The beta cutoffs caused by the first action searched", level)
+                .increment(decisionRecord.numFirstMoveCutoffs());
+        this.counter("engine.tablebase.hits", "The boards valued from the endgame tablebases", level)
+                .increment(decisionRecord.numTablebaseHits());
+
+        DistributionSummary.builder("engine.nodes.per.second")
+                .description("The nodes expanded per second by all threads of a search")
+                .tag(INTELLIGENCE_LEVEL_TAG, level)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1e3)
+                .maximumExpectedValue(1e8)
+                .register(this.registry)
+                .record(decisionRecord.nodesPerSecond());
+        DistributionSummary.builder("engine.depth.reached")
+                .description("The depth of the deepest completed iteration of a search")
+                .tag(INTELLIGENCE_LEVEL_TAG, level)
+                .register(this.registry)
+                .record(decisionRecord.depthReached());
+    }
+
+    /**
+     * Publish the number of searches running and waiting on the given executor, and the number of helper and ponder
+     * searches running on the given threads
+     * @param executor the executor of the searches
+     * @param searchThreads the threads the searches share with their helpers and the ponder searches
+     */
+    public void registerSearchExecutor(ThreadPoolExecutor executor, SearchThreads searchThreads) {
+        Gauge.builder("engine.search.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("The searches running")
+                .register(this.registry);
+        Gauge.builder("engine.search.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("The searches waiting for a thread")
+                .register(this.registry);
+        Gauge.builder("engine.search.helpers.active", searchThreads.getHelperPool(), ThreadPoolExecutor::getActiveCount)
+                .description("The helper threads of the searches running")
+                .register(this.registry);
+        Gauge.builder("engine.search.ponder.active", searchThreads.getPonderPool(), ThreadPoolExecutor::getActiveCount)
+                .description("The ponder searches running")
+                .register(this.registry);
+        Gauge.builder("engine.search.threads.busy", searchThreads, SearchThreads::getNumBusyThreads)
+                .description("The threads the searches, their helpers and the ponder searches take together")
+                .register(this.registry);
+    }
+
+    /**
+     * Record a search rejected because every thread was busy and the queue was full
+     */
+    public void recordRejection() {
+        Counter.builder("engine.search.rejected")
+                .description("The searches rejected because the engine was busy")
+                .register(this.registry)
+                .increment();
+    }
+
+    protected Counter counter(String name, String description, String level) {
+        return Counter.builder(name)
+                .description(description)
+                .tag(INTELLIGENCE_LEVEL_TAG, level)
+                .register(this.registry);
+    }
+}
@@ -0,0 +1,170 @@
+package api;
+
+import game.SearchSession;
+import game.TranspositionTable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The search sessions of the games in progress, indexed by the game id the client sends.
+ * A session is removed when it has not been used for the time to live, and the least recently used sessions are
+ * removed when the tables of all sessions would take more than the memory limit. A removed session stops pondering.
+ */
+@Component
+public class SearchSessions {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The system property that sets the size of the transposition table of each session, such as 16m
+     */
+    public static final String HASH_PROPERTY = "engine.session.hash";
+
+    /**
+     * The system property that sets the memory all sessions can take together, such as 256m
+     */
+    public static final String MEMORY_PROPERTY = "engine.session.memory";
+
+    /**
+     * The system property that sets the minutes a session is kept after it was last used
+     */
+    public static final String TTL_PROPERTY = "engine.session.ttl";
+
+    /**
+     * The system property that sets the seconds a session can ponder after each decision
+     */
+    public static final String PONDER_BUDGET_PROPERTY = "engine.ponder.budget";
+
+    protected static final String DEFAULT_HASH_SIZE = "16m";
+
+    protected static final String DEFAULT_MEMORY = "256m";
+
+    protected static final int DEFAULT_TTL_MINUTES = 30;
+
+    protected static final int DEFAULT_PONDER_BUDGET_SECONDS = 60;
+
+    protected final long hashSizeInBytes;
+
+    protected final long maxMemoryInBytes;
+
+    protected final Duration timeToLive;
+
+    protected final Duration ponderBudget;
+
+    /**
+     * The sessions in the order they were last used, the least recent first
+     */
+    protected final LinkedHashMap<String, SearchSession> sessions;
+
+    protected long memoryInBytes;
+
+    public SearchSessions() {
+        this(TranspositionTable.parseSize(System.getProperty(HASH_PROPERTY, DEFAULT_HASH_SIZE)),
+                TranspositionTable.parseSize(System.getProperty(MEMORY_PROPERTY, DEFAULT_MEMORY)),
+                Duration.ofMinutes(Integer.getInteger(TTL_PROPERTY, DEFAULT_TTL_MINUTES)),
+                Duration.ofSeconds(Integer.getInteger(PONDER_BUDGET_PROPERTY, DEFAULT_PONDER_BUDGET_SECONDS)));
+    }
+
+    public SearchSessions(long hashSizeInBytes, long maxMemoryInBytes, Duration timeToLive, Duration ponderBudget) {
+        this.hashSizeInBytes = hashSizeInBytes;
+        this.maxMemoryInBytes = maxMemoryInBytes;
+        this.timeToLive = timeToLive;
+        this.ponderBudget = ponderBudget;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true);
+        this.memoryInBytes = 0;
+    }
+
+    /**
+     * Get the time a session can ponder after each decision
+     * @return the budget
+     */
+    public Duration getPonderBudget() {
+        return this.ponderBudget;
+    }
+
+    /**
+     * Get the session of the given game, starting a new one if there is none
+     * @param gameId the id of the game
+     * @return the session
+     */
+    public synchronized SearchSession get(String gameId) {
+        this.removeExpired();
+
+        SearchSession session = this.sessions.get(gameId);
+        if (session == null) {
+            this.makeRoomFor(this.hashSizeInBytes);
+            session = new SearchSession(this.hashSizeInBytes);
+            this.sessions.put(gameId, session);
+            this.memoryInBytes += session.sizeInBytes();
+            logger.info("Started the search session of game {}, {} sessions in use", gameId, this.sessions.size());
+        }
+
+        session.touch();
+        return session;
+    }
+
+    /**
+     * Remove the session of the given game
+     * @param gameId the id of the game
+     * @return true if there was a session, false otherwise
+     */
+    public synchronized boolean remove(String gameId) {
+        SearchSession session = this.sessions.remove(gameId);
+        if (session == null) {
+            return false;
+        }
+
+        session.stopPondering();
+        this.memoryInBytes -= session.sizeInBytes();
+        return true;
+    }
+
+    /**
+     * Get the number of sessions
+     * @return the number of sessions
+     */
+    public synchronized int size() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Remove the sessions that have not been used for the time to live
+     */
+    protected void removeExpired() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, SearchSession>> iterator = this.sessions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            SearchSession session = iterator.next().getValue();
+            // the least recently used sessions come first, so the rest are not expired
+            if (now - session.getLastUsedTime() < this.timeToLive.toNanos()) {
+                break;
+            }
+
+            iterator.remove();
+            session.stopPondering();
+            this.memoryInBytes -= session.sizeInBytes();
+        }
+    }
+
+    /**
+     * Remove the least recently used sessions until a new session of the given size fits in the memory limit
+     * @param sizeInBytes the size of the new session
+     */
+    protected void makeRoomFor(long sizeInBytes) {
+        Iterator<Map.Entry<String, SearchSession>> iterator = this.sessions.entrySet().iterator();
+        while (iterator.hasNext() && this.memoryInBytes + sizeInBytes > this.maxMemoryInBytes) {
+            Map.Entry<String, SearchSession> eldest = iterator.next();
+            iterator.remove();
+            eldest.getValue().stopPondering();
+            this.memoryInBytes -= eldest.getValue().sizeInBytes();
+            logger.info("Evicted the search session of game {} to stay within {} bytes", eldest.getKey(),
+                    this.maxMemoryInBytes);
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import piece.*;
+import util.Position;
+
+import java.util.Arrays;
+
+/**
+ * The bitboard representation of the chess board.
+ * A square is indexed as y * 8 + x, so bit 0 is the top left tile of the board string.
+ */
+public class Board implements Cloneable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final int BOARD_SIZE = 8;
+
+    public static final int NUM_SQUARES = BOARD_SIZE * BOARD_SIZE;
+
+    public static final int BOT = 0;
+
+    public static final int HUMAN = 1;
+
+    public static final int PAWN = 0;
+
+    public static final int KNIGHT = 1;
+
+    public static final int BISHOP = 2;
+
+    public static final int ROOK = 3;
+
+    public static final int QUEEN = 4;
+
+    public static final int KING = 5;
+
+    public static final int NUM_PIECE_TYPES = 6;
+
+    public static final int EMPTY = -1;
+
+    /**
+     * The maximum number of moves that can be made on the board without being unmade
+     */
+    public static final int MAX_PLY = 256;
+
+    protected static final int UNDO_TYPE_SHIFT = 12;
+
+    protected static final int UNDO_CAPTURED_SHIFT = 15;
+
+    protected static final int UNDO_PROMOTED_SHIFT = 18;
+
+    /**
+     * The pieces of each color and type, indexed by color * NUM_PIECE_TYPES + type
+     */
+    protected long[] pieces;
+
+    /**
+     * The occupancy mask of each color
+     */
+    protected long[] occupancy;
+
+    protected boolean isBotTurn;
+
+    /**
+     * The Zobrist hash of the board, updated incrementally whenever a piece or the turn changes
+     */
+    protected long hash;
+
+    /**
+     * The Zobrist hash of the pawns only, which keys the pawn structure
+     */
+    protected long pawnHash;
+
+    /**
+     * The material of each color, updated incrementally whenever a piece changes
+     */
+    protected int[] material;
+
+    /**
+     * The sum of the piece-square bonuses of each color, updated incrementally whenever a piece changes
+     */
+    protected int[] pieceSquare;
+
+    /**
+     * The information needed to unmake each move made, indexed by ply. It is allocated on the first move made.
+     */
+    protected int[] undoStack;
+
+    protected int ply;
+
+    public Board() {
+        this.pieces = new long[2 * NUM_PIECE_TYPES];
+        this.occupancy = new long[2];
+        this.material = new int[2];
+        this.pieceSquare = new int[2];
+        this.isBotTurn = true;
+        this.hash = Zobrist.BOT_TURN_KEY;
+    }
+
+    /**
+     * Create the board with the initial placement of the game
+     * @return the board
+     */
+    public static Board initial() {
+        Board board = new Board();
+
+        for (int color : new int[] {BOT, HUMAN}) {
+            final int PAWN_ROW = color == BOT ? 1 : 6;
+
+            final int NUM_PAWNS = 8;
+            for (int j = 0; j < NUM_PAWNS; j++) {
+                board.addPiece(color, PAWN, square(j, PAWN_ROW));
+            }
+
+            final int PIECE_ROW = color == BOT ? 0 : 7;
+
+            final int BISHOP1_COL = 2;
+            final int BISHOP2_COL = 5;
+            final int KNIGHT1_COl = 1;
+            final int KNIGHT2_COL = 6;
+            final int ROOK1_COL = 0;
+            final int ROOK2_COL = 7;
+            final int KING_COL = 3;
+            final int QUEEN_COL = 4;
+
+            board.addPiece(color, BISHOP, square(BISHOP1_COL, PIECE_ROW));
+            board.addPiece(color, BISHOP, square(BISHOP2_COL, PIECE_ROW));
+            board.addPiece(color, KNIGHT, square(KNIGHT1_COl, PIECE_ROW));
+            board.addPiece(color, KNIGHT, square(KNIGHT2_COL, PIECE_ROW));
+            board.addPiece(color, ROOK, square(ROOK1_COL, PIECE_ROW));
+            board.addPiece(color, ROOK, square(ROOK2_COL, PIECE_ROW));
+            board.addPiece(color, KING, square(KING_COL, PIECE_ROW));
+            board.addPiece(color, QUEEN, square(QUEEN_COL, PIECE_ROW));
+        }
+
+        return board;
+    }
+
+    /**
+     * Get the square index of the given x and y
+     * @param x the x
+     * @param y the y
+     * @return the square
+     */
+    public static int square(int x, int y) {
+        return y * BOARD_SIZE + x;
+    }
+
+    /**
+     * Get the square index of the given position
+     * @param position the position
+     * @return the square
+     */
+    public static int square(Position position) {
+        return square(position.x(), position.y());
+    }
+
+    /**
+     * Get the position of the given square
+     * @param square the square
+     * @return the position
+     */
+    public static Position position(int square) {
+        return new Position(square % BOARD_SIZE, square / BOARD_SIZE);
+    }
+
+    /**
+     * Get the color index of the player
+     * @param isBot whether the player is bot or not
+     * @return the color
+     */
+    public static int colorOf(boolean isBot) {
+        return isBot ? BOT : HUMAN;
+    }
+
+    /**
+     * Get the type of the piece that the icon indicates
+     * @param icon the icon of the piece. It can be either black or white
+     * @return the type
+     */
+    public static int typeOf(char icon) {
+        return switch (icon) {
+            case Pawn.BLACK_ICON, Pawn.WHITE_ICON -> PAWN;
+            case Knight.BLACK_ICON, Knight.WHITE_ICON -> KNIGHT;
+            case Bishop.BLACK_ICON, Bishop.WHITE_ICON -> BISHOP;
+            case Rook.BLACK_ICON, Rook.WHITE_ICON -> ROOK;
+            case Queen.BLACK_ICON, Queen.WHITE_ICON -> QUEEN;
+            case King.BLACK_ICON, King.WHITE_ICON -> KING;
+            default -> throw new IllegalArgumentException(String.format("The icon %s is invalid", icon));
+        };
+    }
+
+    /**
+     * Get the icon of the piece of the given color and type
+     * @param color the color
+     * @param type the type
+     * @return the icon
+     */
+    public static char iconOf(int color, int type) {
+        boolean isBot = color == BOT;
+        return switch (type) {
+            case PAWN -> isBot ? Pawn.BLACK_ICON : Pawn.WHITE_ICON;
+            case KNIGHT -> isBot ? Knight.BLACK_ICON : Knight.WHITE_ICON;
+            case BISHOP -> isBot ? Bishop.BLACK_ICON : Bishop.WHITE_ICON;
+            case ROOK -> isBot ? Rook.BLACK_ICON : Rook.WHITE_ICON;
+            case QUEEN -> isBot ? Queen.BLACK_ICON : Queen.WHITE_ICON;
+            case KING -> isBot ? King.BLACK_ICON : King.WHITE_ICON;
+            default -> throw new IllegalArgumentException(String.format("The type %s is invalid", type));
+        };
+    }
+
+    /**
+     * Check if it is the bot turn
+     * @return true if it is, false otherwise
+     */
+    public boolean isBotTurn() {
+        return this.isBotTurn;
+    }
+
+    /**
+     * Set whose turn it is
+     * @param isBotTurn whether it is a bot turn or not
+     */
+    public void setBotTurn(boolean isBotTurn) {
+        if (this.isBotTurn != isBotTurn) {
+            this.hash ^= Zobrist.BOT_TURN_KEY;
+        }
+        this.isBotTurn = isBotTurn;
+    }
+
+    /**
+     * Get the Zobrist hash of the board
+     * @return the hash
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Get the Zobrist hash of the pawns of both colors
+     * @return the hash
+     */
+    public long getPawnHash() {
+        return this.pawnHash;
+    }
+
+    /**
+     * Get the material of the given color
+     * @param color the color
+     * @return the material
+     */
+    public int getMaterial(int color) {
+        return this.material[color];
+    }
+
+    /**
+     * Get the sum of the piece-square bonuses of the given color
+     * @param color the color
+     * @return the sum in hundredths of a pawn
+     */
+    public int getPieceSquare(int color) {
+        return this.pieceSquare[color];
+    }
+
+    /**
+     * Get the bitboard of the pieces of the given color and type
+     * @param color the color
+     * @param type the type
+     * @return the bitboard
+     */
+    public long getPieces(int color, int type) {
+        return this.pieces[color * NUM_PIECE_TYPES + type];
+    }
+
+    /**
+     * Get the occupancy mask of the given color
+     * @param color the color
+     * @return the bitboard
+     */
+    public long getOccupancy(int color) {
+        return this.occupancy[color];
+    }
+
+    /**
+     * Get the occupancy mask of both colors
+     * @return the bitboard
+     */
+    public long getOccupied() {
+        return this.occupancy[BOT] | this.occupancy[HUMAN];
+    }
+
+    /**
+     * Count the pieces of the given color and type
+     * @param color the color
+     * @param type the type
+     * @return the number of pieces
+     */
+    public int count(int color, int type) {
+        return Long.bitCount(this.getPieces(color, type));
+    }
+
+    /**
+     * Count all pieces of the given color
+     * @param color the color
+     * @return the number of pieces
+     */
+    public int count(int color) {
+        return Long.bitCount(this.occupancy[color]);
+    }
+
+    /**
+     * Check if the given square is occupied by any piece of the given color
+     * @param color the color
+     * @param square the square
+     * @return true if it is, false otherwise
+     */
+    public boolean isOccupied(int color, int square) {
+        return (this.occupancy[color] & (1L << square)) != 0;
+    }
+
+    /**
+     * Get the type of the piece of the given color at the given square
+     * @param color the color
+     * @param square the square
+     * @return the type, or EMPTY if there is none
+     */
+    public int typeAt(int color, int square) {
+        long bit = 1L << square;
+        if ((this.occupancy[color] & bit) == 0) {
+            return EMPTY;
+        }
+
+        int offset = color * NUM_PIECE_TYPES;
+        for (int type = 0; type < NUM_PIECE_TYPES; type++) {
+            if ((this.pieces[offset + type] & bit) != 0) {
+                return type;
+            }
+        }
+
+        return EMPTY;
+    }
+
+    /**
+     * Put a piece of the given color and type on the given empty square
+     * @param color the color
+     * @param type the type
+     * @param square the square
+     */
+    public void addPiece(int color, int type, int square) {
+        long bit = 1L << square;
+        this.pieces[color * NUM_PIECE_TYPES + type] |= bit;
+        this.occupancy[color] |= bit;
+        this.material[color] += PieceSquareTable.materialOf(type);
+        this.pieceSquare[color] += PieceSquareTable.valueOf(color, type, square);
+        this.hash ^= Zobrist.pieceKey(color, type, square);
+        if (type == PAWN) {
+            this.pawnHash ^= Zobrist.pieceKey(color, type, square);
+        }
+    }
+
+    /**
+     * Remove the piece of the given color and type from the given square
+     * @param color the color
+     * @param type the type
+     * @param square the square
+     */
+    public void removePiece(int color, int type, int square) {
+        long bit = ~(1L << square);
+        this.pieces[color * NUM_PIECE_TYPES + type] &= bit;
+        this.occupancy[color] &= bit;
+        this.material[color] -= PieceSquareTable.materialOf(type);
+        this.pieceSquare[color] -= PieceSquareTable.valueOf(color, type, square);
+        this.hash ^= Zobrist.pieceKey(color, type, square);
+        if (type == PAWN) {
+            this.pawnHash ^= Zobrist.pieceKey(color, type, square);
+        }
+    }
+
+    /**
+     * Remove the piece of the given color at the given square if present
+     * @param color the color
+     * @param square the square
+     * @return the type of the removed piece, or EMPTY if there was none
+     */
+    public int removePieceAt(int color, int square) {
+        int type = this.typeAt(color, square);
+        if (type != EMPTY) {
+            this.removePiece(color, type, square);
+        }
+        return type;
+    }
+
+    /**
+     * Move the piece of the given color and type between the given squares
+     * @param color the color
+     * @param type the type
+     * @param from the square to move from
+     * @param to the square to move to
+     */
+    public void movePiece(int color, int type, int from, int to) {
+        long fromTo = (1L << from) | (1L << to);
+        this.pieces[color * NUM_PIECE_TYPES + type] ^= fromTo;
+        this.occupancy[color] ^= fromTo;
+        this.pieceSquare[color] += PieceSquareTable.valueOf(color, type, to) - PieceSquareTable.valueOf(color, type, from);
+        this.hash ^= Zobrist.pieceKey(color, type, from) ^ Zobrist.pieceKey(color, type, to);
+        if (type == PAWN) {
+            this.pawnHash ^= Zobrist.pieceKey(color, type, from) ^ Zobrist.pieceKey(color, type, to);
+        }
+    }
+
+    /**
+     * Make the given move in place for the player of the current turn and pass the turn.
+     * A pawn that reaches the last row is promoted to a queen.
+     * @param move the move encoded by Move
+     * @return the type of the captured piece, or EMPTY if there was none
+     */
+    public int makeMove(int move) {
+        if (this.undoStack == null) {
+            this.undoStack = new int[MAX_PLY];
+        } else if (this.ply == MAX_PLY) {
+            throw new IllegalStateException("Cannot make more than " + MAX_PLY + " moves without unmaking them.");
+        }
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int color = this.isBotTurn ? BOT : HUMAN;
+
+        int type = this.typeAt(color, from);
+        if (type == EMPTY) {
+            throw new IllegalArgumentException(String.format("A piece at %s not found.", position(from)));
+        }
+
+        int captured = this.removePieceAt(1 - color, to);
+        this.movePiece(color, type, from, to);
+
+        int promoted = 0;
+        if (type == PAWN && to / BOARD_SIZE == (color == BOT ? BOARD_SIZE - 1 : 0)) {
+            this.removePiece(color, PAWN, to);
+            this.addPiece(color, QUEEN, to);
+            promoted = 1;
+        }
+
+        this.setBotTurn(!this.isBotTurn);
+        this.undoStack[this.ply++] = (move & ((1 << UNDO_TYPE_SHIFT) - 1))
+                | (type << UNDO_TYPE_SHIFT)
+                | ((captured + 1) << UNDO_CAPTURED_SHIFT)
+                | (promoted << UNDO_PROMOTED_SHIFT);
+
+        return captured;
+    }
+
+    /**
+     * Unmake the last move made by makeMove
+     */
+    public void unmakeMove() {
+        if (this.ply == 0) {
+            throw new IllegalStateException("There is no move to unmake.");
+        }
+
+        int undo = this.undoStack[--this.ply];
+        int from = Move.from(undo);
+        int to = Move.to(undo);
+        int type = (undo >>> UNDO_TYPE_SHIFT) & 0x7;
+        int captured = ((undo >>> UNDO_CAPTURED_SHIFT) & 0x7) - 1;
+
+        this.setBotTurn(!this.isBotTurn);
+        int color = this.isBotTurn ? BOT : HUMAN;
+
+        if ((undo >>> UNDO_PROMOTED_SHIFT) != 0) {
+            this.removePiece(color, QUEEN, to);
+            this.addPiece(color, PAWN, to);
+        }
+
+        this.movePiece(color, type, to, from);
+
+        if (captured != EMPTY) {
+            this.addPiece(1 - color, captured, to);
+        }
+    }
+
+    /**
+     * Get the number of moves made and not unmade yet
+     * @return the ply
+     */
+    public int getPly() {
+        return this.ply;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Board other)) {
+            return false;
+        }
+
+        return this.hash == other.hash && this.isBotTurn == other.isBotTurn && Arrays.equals(this.pieces, other.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.hash);
+    }
+
+    @Override
+    public Board clone() {
+        try {
+            Board clone = (Board) super.clone();
+            clone.pieces = this.pieces.clone();
+            clone.occupancy = this.occupancy.clone();
+            clone.material = this.material.clone();
+            clone.pieceSquare = this.pieceSquare.clone();
+            clone.undoStack = null;
+            clone.ply = 0;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw logger.throwing(new RuntimeException(e));
+        }
+    }
+}
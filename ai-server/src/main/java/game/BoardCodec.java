@@ -0,0 +1,251 @@
+package game;
+
+import piece.*;
+
+import java.util.Base64;
+
+/**
+ * The formats a board is read from and written in, which go straight into the bitboards without creating pieces.
+ * <ul>
+ *     <li>Text: the icons of the pieces, one line per row from y = 0, where any other character is an empty square</li>
+ *     <li>FEN: the placement and the side to move of the Forsyth-Edwards Notation, where the bot plays black from the
+ *     eighth rank, which is y = 0. The castling, en passant and move number fields are written as "- - 0 1" and
+ *     ignored when read, since the game has no such rules.</li>
+ *     <li>Binary: 32 bytes with 4 bits per square, the square y * 8 + x in the low bits of byte square / 2 if it is
+ *     even and the high bits otherwise. 0 is an empty square, 1 to 6 a human pawn, knight, bishop, rook, queen and
+ *     king, and 9 to 14 the same pieces of the bot. It is sent as URL-safe base64 in text, which has no '/'.</li>
+ * </ul>
+ */
+public final class BoardCodec {
+
+    public static final int BINARY_SIZE = Board.NUM_SQUARES / 2;
+
+    protected static final int BITS_PER_SQUARE = 4;
+
+    protected static final int SQUARE_MASK = (1 << BITS_PER_SQUARE) - 1;
+
+    /**
+     * The bit of the code of a square that marks a piece of the bot
+     */
+    protected static final int BOT_BIT = 8;
+
+    /**
+     * The letters of the types of the pieces of FEN in the order of their types, upper case for the human
+     */
+    protected static final String FEN_LETTERS = "PNBRQK";
+
+    protected static final char FEN_RANK_SEPARATOR = '/';
+
+    protected static final String FEN_UNUSED_FIELDS = " - - 0 1";
+
+    private BoardCodec() {}
+
+    /**
+     * Decode the given board, detecting its format. A board with a character that is not ASCII is text, a board
+     * with '/' is FEN and any other board is base64 of the binary format.
+     * @param board the board
+     * @return the board, where it is the turn the FEN gives, or the bot turn in the other formats
+     * @throws IllegalArgumentException if the board is invalid
+     */
+    public static Board decode(String board) {
+        if (!board.isEmpty() && board.charAt(0) > Byte.MAX_VALUE) {
+            return fromText(board);
+        } else if (board.indexOf(FEN_RANK_SEPARATOR) >= 0) {
+            return fromFen(board);
+        } else if (board.isEmpty()) {
+            return new Board();
+        }
+
+        try {
+            return fromBinary(Base64.getUrlDecoder().decode(board));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("The board is neither text, FEN nor base64. Given: %s", board), e);
+        }
+    }
+
+    /**
+     * Read the board from the text of the icons of its pieces
+     * @param text the text
+     * @return the board
+     * @throws IllegalArgumentException if a piece is out of the board
+     */
+    public static Board fromText(String text) {
+        Board board = new Board();
+        int x = 0;
+        int y = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char icon = text.charAt(i);
+            if (icon == '\n') {
+                x = 0;
+                y++;
+                continue;
+            }
+
+            int color = colorOfIcon(icon);
+            if (color != Board.EMPTY) {
+                if (x >= Board.BOARD_SIZE || y >= Board.BOARD_SIZE) {
+                    throw new IllegalArgumentException(String.format("The position at (%d, %d) is out of the board", x, y));
+                }
+                board.addPiece(color, Board.typeOf(icon), Board.square(x, y));
+            }
+            x++;
+        }
+
+        return board;
+    }
+
+    /**
+     * Get the color of the piece of the given icon
+     * @param icon the icon
+     * @return the color, or Board.EMPTY if it is not the icon of a piece
+     */
+    protected static int colorOfIcon(char icon) {
+        return switch (icon) {
+            case Bishop.BLACK_ICON, King.BLACK_ICON, Knight.BLACK_ICON, Pawn.BLACK_ICON, Queen.BLACK_ICON,
+                    Rook.BLACK_ICON -> Board.BOT;
+            case Bishop.WHITE_ICON, King.WHITE_ICON, Knight.WHITE_ICON, Pawn.WHITE_ICON, Queen.WHITE_ICON,
+                    Rook.WHITE_ICON -> Board.HUMAN;
+            default -> Board.EMPTY;
+        };
+    }
+
+    /**
+     * Read the board from FEN
+     * @param fen the FEN, of which only the placement is required
+     * @return the board, where it is the bot turn if the side to move is black
+     * @throws IllegalArgumentException if the FEN is invalid
+     */
+    public static Board fromFen(String fen) {
+        Board board = new Board();
+        int x = 0;
+        int y = 0;
+        int i = 0;
+
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == FEN_RANK_SEPARATOR) {
+                if (x != Board.BOARD_SIZE) {
+                    throw new IllegalArgumentException(String.format("The rank %d of the FEN does not have 8 squares. Given: %s", 8 - y, fen));
+                }
+                x = 0;
+                y++;
+            } else if (c >= '1' && c <= '8') {
+                x += c - '0';
+            } else {
+                int type = FEN_LETTERS.indexOf(Character.toUpperCase(c));
+                if (type < 0) {
+                    throw new IllegalArgumentException(String.format("The letter %s of the FEN is invalid. Given: %s", c, fen));
+                } else if (x >= Board.BOARD_SIZE || y >= Board.BOARD_SIZE) {
+                    throw new IllegalArgumentException(String.format("The FEN has more than 8 squares in a rank or more than 8 ranks. Given: %s", fen));
+                }
+                board.addPiece(Character.isUpperCase(c) ? Board.HUMAN : Board.BOT, type, Board.square(x, y));
+                x++;
+            }
+        }
+
+        if (x != Board.BOARD_SIZE || y != Board.BOARD_SIZE - 1) {
+            throw new IllegalArgumentException(String.format("The placement of the FEN does not have 8 ranks of 8 squares. Given: %s", fen));
+        }
+
+        // the side to move is the field after the placement, and white moves first without it
+        board.setBotTurn(i + 1 < fen.length() && fen.charAt(i + 1) == 'b');
+        return board;
+    }
+
+    /**
+     * Write the board in FEN
+     * @param board the board
+     * @return the FEN
+     */
+    public static String toFen(Board board) {
+        StringBuilder builder = new StringBuilder(Board.NUM_SQUARES + FEN_UNUSED_FIELDS.length());
+
+        for (int y = 0; y < Board.BOARD_SIZE; y++) {
+            if (y > 0) {
+                builder.append(FEN_RANK_SEPARATOR);
+            }
+
+            int numEmpty = 0;
+            for (int x = 0; x < Board.BOARD_SIZE; x++) {
+                int square = Board.square(x, y);
+                int botType = board.typeAt(Board.BOT, square);
+                int humanType = board.typeAt(Board.HUMAN, square);
+                if (botType == Board.EMPTY && humanType == Board.EMPTY) {
+                    numEmpty++;
+                    continue;
+                }
+
+                if (numEmpty > 0) {
+                    builder.append((char) ('0' + numEmpty));
+                    numEmpty = 0;
+                }
+                builder.append(botType != Board.EMPTY
+                        ? Character.toLowerCase(FEN_LETTERS.charAt(botType))
+                        : FEN_LETTERS.charAt(humanType));
+            }
+            if (numEmpty > 0) {
+                builder.append((char) ('0' + numEmpty));
+            }
+        }
+
+        builder.append(board.isBotTurn() ? " b" : " w").append(FEN_UNUSED_FIELDS);
+        return builder.toString();
+    }
+
+    /**
+     * Read the board from the binary format
+     * @param bytes the 32 bytes
+     * @return the board
+     * @throws IllegalArgumentException if the bytes are not 32 or a square has an invalid code
+     */
+    public static Board fromBinary(byte[] bytes) {
+        if (bytes.length != BINARY_SIZE) {
+            throw new IllegalArgumentException(String.format("The binary board must be %d bytes. Given: %d", BINARY_SIZE, bytes.length));
+        }
+
+        Board board = new Board();
+        for (int square = 0; square < Board.NUM_SQUARES; square++) {
+            int code = (bytes[square >>> 1] >>> ((square & 1) * BITS_PER_SQUARE)) & SQUARE_MASK;
+            if (code == 0) {
+                continue;
+            }
+
+            int type = (code & ~BOT_BIT) - 1;
+            if (type < 0 || type >= Board.NUM_PIECE_TYPES) {
+                throw new IllegalArgumentException(String.format("The code %d of the square %d is invalid", code, square));
+            }
+            board.addPiece((code & BOT_BIT) != 0 ? Board.BOT : Board.HUMAN, type, square);
+        }
+
+        return board;
+    }
+
+    /**
+     * Write the board in the binary format
+     * @param board the board
+     * @return the 32 bytes
+     */
+    public static byte[] toBinary(Board board) {
+        byte[] bytes = new byte[BINARY_SIZE];
+
+        for (int color = Board.BOT; color <= Board.HUMAN; color++) {
+            for (long bb = board.getOccupancy(color); bb != 0; bb &= bb - 1) {
+                int square = Long.numberOfTrailingZeros(bb);
+                int code = (board.typeAt(color, square) + 1) | (color == Board.BOT ? BOT_BIT : 0);
+                bytes[square >>> 1] |= (byte) (code << ((square & 1) * BITS_PER_SQUARE));
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Write the board in the binary format as URL-safe base64
+     * @param board the board
+     * @return the base64 without padding
+     */
+    public static String toBase64(Board board) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(toBinary(board));
+    }
+}
@@ -1,157 +1,872 @@
 package game;
 
+import org.jetbrains.annotations.Nullable;
 import piece.Queen;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class Bot {
 
+    /**
+     * The system property that sets the default number of threads of a search
+     */
+    public static final String THREADS_PROPERTY = "engine.threads";
+
     protected final Game game;
 
     protected final int intelligenceLevel;
 
-    protected Map<State, Double> transpositionTable;
+    /**
+     * The number of threads that search at once, including the main one
+     */
+    protected final int numThreads;
+
+    /**
+     * The threads the helper searches run on, which can give fewer helpers than asked for when they are busy
+     */
+    protected final SearchThreads searchThreads;
+
+    /**
+     * The depth limit of the current iteration
+     */
+    protected int depthLimit;
+
+    /**
+     * The limits of the current search
+     */
+    protected SearchControl control;
+
+    protected boolean isStopped;
+
+    protected boolean hasCompletedIteration;
+
+    protected final TranspositionTable transpositionTable;
 
     protected int numNodesExpanded;
 
+    protected int numTranspositionHits;
+
+    protected int numTranspositionMisses;
+
+    protected final MoveOrdering moveOrdering;
+
+    protected final PawnHashTable pawnHashTable;
+
+    /**
+     * The gain on top of the captured piece a capture is assumed to be able to make in the evaluation. A capture that
+     * cannot raise the value to the best value for the player even with this margin is not searched.
+     */
+    protected static final double DELTA_MARGIN = 2.0;
+
+    /**
+     * The value a won board of the tablebases loses for each ply until the king is captured, so the search prefers
+     * the shorter wins and the longer losses
+     */
+    protected static final double TABLEBASE_PLY_PENALTY = 0.1;
+
+    protected final Tablebase tablebase;
+
+    protected int numTablebaseHits;
+
+    protected int numCutoffs;
+
+    protected int numFirstMoveCutoffs;
+
+    /**
+     * The most moves of a principal variation
+     */
+    protected static final int MAX_PRINCIPAL_VARIATION_LENGTH = 32;
+
+    /**
+     * The moves the last decision expects to be played, starting with the action taken
+     */
+    protected int[] principalVariation;
+
+    /**
+     * The moves generated at each depth of the search, which are reused by every node of the depth, so a node does not
+     * allocate. A depth gets its array the first time the search reaches it.
+     */
+    protected final int[][] moveBuffers;
+
+    /**
+     * The scores the moves of each depth are ordered by
+     */
+    protected final int[][] scoreBuffers;
+
+    /**
+     * The listener told about each iteration the main search completes, or null
+     */
+    protected Consumer<IterationRecord> iterationListener;
+
+    /**
+     * The time the current search started
+     */
+    protected Instant searchStartTime;
+
     public Bot(int intelligenceLevel) {
+        this(intelligenceLevel, TranspositionTable.ofDefaultSize());
+    }
+
+    public Bot(int intelligenceLevel, TranspositionTable transpositionTable) {
+        this(intelligenceLevel, transpositionTable, getDefaultNumThreads());
+    }
+
+    public Bot(int intelligenceLevel, TranspositionTable transpositionTable, int numThreads) {
+        this(intelligenceLevel, transpositionTable, numThreads, SearchThreads.getDefault());
+    }
+
+    public Bot(int intelligenceLevel, TranspositionTable transpositionTable, int numThreads, SearchThreads searchThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException(String.format("The number of threads must be positive. Given: %s", numThreads));
+        }
+
         this.game = new Game();
         this.intelligenceLevel = intelligenceLevel;
-        this.transpositionTable = new HashMap<>();
+        this.numThreads = numThreads;
+        this.searchThreads = searchThreads;
+        this.transpositionTable = transpositionTable;
+        this.moveOrdering = new MoveOrdering();
+        this.pawnHashTable = new PawnHashTable();
+        this.tablebase = Tablebase.getShared();
         this.numNodesExpanded = 0;
+        this.numTranspositionHits = 0;
+        this.numTranspositionMisses = 0;
+        this.numCutoffs = 0;
+        this.numFirstMoveCutoffs = 0;
+        this.numTablebaseHits = 0;
+        this.principalVariation = new int[0];
+        this.moveBuffers = new int[Board.MAX_PLY + 1][];
+        this.scoreBuffers = new int[Board.MAX_PLY + 1][];
+    }
+
+    /**
+     * Get the number of threads of a search, which is read from the engine.threads property
+     * @return the number of threads
+     */
+    public static int getDefaultNumThreads() {
+        return Math.max(1, Integer.getInteger(THREADS_PROPERTY, 1));
+    }
+
+    /**
+     * Set the listener told about each iteration the search completes, such as to report the progress of a search
+     * while it runs. It is called on the thread of the search.
+     * @param iterationListener the listener, or null for none
+     */
+    public void setIterationListener(@Nullable Consumer<IterationRecord> iterationListener) {
+        this.iterationListener = iterationListener;
+    }
+
+    /**
+     * Look up the entry of the given board in the transposition table
+     * @param board the board
+     * @return the packed entry, or TranspositionTable.MISS if the board has not been searched
+     */
+    protected long probe(Board board) {
+        long entry = this.transpositionTable.probe(board.getHash());
+        if (entry == TranspositionTable.MISS) {
+            this.numTranspositionMisses++;
+        } else {
+            this.numTranspositionHits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Look up the value of the given board in the tablebases
+     * @param board the board, which is not terminal
+     * @return the value for the bot, or NaN if the tablebases have no table of the material of the board
+     */
+    protected double probeTablebase(Board board) {
+        int value = this.tablebase.probe(board);
+        if (value == Tablebase.NOT_FOUND) {
+            return Double.NaN;
+        }
+
+        this.numTablebaseHits++;
+        if (value == 0) {
+            return 0.0;
+        }
+
+        double score = Game.MINIMAX_VALUE_RANGE - Math.abs(value) * TABLEBASE_PLY_PENALTY;
+        return (value > 0) == board.isBotTurn() ? score : -score;
+    }
+
+    /**
+     * Choose the action of the given board from the tablebases without searching, which is the action that leads to
+     * the shortest win, or else a draw, or else the longest loss
+     * @param board the board of the root, where it is the bot turn
+     * @return the move and its value, or null if the tablebases do not have the board and every board it leads to
+     */
+    protected Iteration searchTablebase(Board board) {
+        if (this.tablebase.probe(board) == Tablebase.NOT_FOUND) {
+            return null;
+        }
+
+        double minimaxValue = Double.NEGATIVE_INFINITY;
+        int bestMove = Move.NO_MOVE;
+        int[] moves = this.moveBuffer(0);
+        int numMoves = MoveGenerator.generate(board, moves);
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            double value = this.game.isTerminal(board) ? this.game.utility(board) : this.probeTablebase(board);
+            board.unmakeMove();
+
+            if (Double.isNaN(value)) {
+                return null;
+            } else if (value > minimaxValue) {
+                minimaxValue = value;
+                bestMove = moves[i];
+            }
+        }
+
+        return bestMove == Move.NO_MOVE ? null : new Iteration(bestMove, minimaxValue, 0);
     }
 
     /**
-     * Check if the given depth exceeded the depth limit of the game
+     * Check if the given depth exceeded the depth limit of the current iteration
      * @param depth the depth to check
      * @return true if it should, false otherwise
      */
     protected boolean shouldCutOff(int depth) {
-        return depth > this.intelligenceLevel;
+        return depth > this.depthLimit;
+    }
+
+    /**
+     * Get the depth left to search below the given depth
+     * @param depth the current depth
+     * @return the remaining depth
+     */
+    protected int remainingDepth(int depth) {
+        return this.depthLimit - depth + 1;
+    }
+
+    /**
+     * Check if the search should stop, which is at once when it is aborted, or when the deadline or the node budget
+     * is reached after at least one iteration completed
+     * @return true if it should, false otherwise
+     */
+    protected boolean shouldStop() {
+        if (!this.isStopped
+                && (this.control.isAborted() || this.control.visit() && this.hasCompletedIteration)) {
+            this.isStopped = true;
+        }
+        return this.isStopped;
     }
 
     /**
-     * Decide the next action from the given state
+     * Decide the next action from the given state, searching as deep as the intelligence level
      * @param state the state
      * @return the decision
      */
     public DecisionRecord decide(State state) {
+        return this.decide(state, SearchControl.unlimited());
+    }
+
+    /**
+     * Decide the next action from the given state within the given time
+     * @param state the state
+     * @param timeLimit the time the bot can think, or null for no limit
+     * @return the decision
+     */
+    public DecisionRecord decide(State state, @Nullable Duration timeLimit) {
+        return this.decide(state, new SearchControl(timeLimit, null));
+    }
+
+    /**
+     * Decide the next action from the given state. The search deepens one level at a time up to the intelligence
+     * level, and returns the result of the deepest iteration completed within the limits of the control.
+     * With more than one thread, helper threads search the same root at the same time (Lazy SMP). They share only
+     * the transposition table, so they fill it with results the main search then finds, and the main search decides.
+     * A helper only starts on a thread of the search threads that is free, and the decision records the number of
+     * threads that searched.
+     * A board the tablebases have is decided from them without searching.
+     * @param state the state
+     * @param control the limits of the search
+     * @return the decision, or null if there is no action or the search was aborted before any iteration completed
+     */
+    public DecisionRecord decide(State state, SearchControl control) {
+        return this.decide(state, control, Move.NO_MOVE);
+    }
+
+    /**
+     * Decide the next action from the given state, searching the given move first
+     * @param state the state
+     * @param control the limits of the search
+     * @param expectedMove the move expected to be the best, such as the one a previous principal variation continues
+     *                     with, or Move.NO_MOVE
+     * @return the decision, or null if there is no action or the search was aborted before any iteration completed
+     */
+    public DecisionRecord decide(State state, SearchControl control, int expectedMove) {
         Instant startTime = Instant.now();
 
-        this.transpositionTable.clear();
+        this.transpositionTable.newSearch();
+
+        Board board = state.getBoard().clone();
+        board.setBotTurn(true);
+
+        this.resetStatistics();
+        Iteration best = this.searchTablebase(board);
+
+        // the thread of the search counts as busy even when it is not run by the executor, and the helpers only take
+        // the threads that are left free, so the search may run on fewer threads than asked for
+        this.searchThreads.startMainSearch();
+        int numHelpers = 0;
+        List<Bot> helpers = new ArrayList<>();
+        List<SearchControl> helperControls = new ArrayList<>();
+        List<CompletableFuture<Iteration>> helperSearches = new ArrayList<>();
+        try {
+            numHelpers = best == null ? this.searchThreads.reserve(this.numThreads - 1) : 0;
+            for (int i = 1; i <= numHelpers; i++) {
+                Bot helper = new Bot(this.intelligenceLevel, this.transpositionTable, 1, this.searchThreads);
+                SearchControl helperControl = SearchControl.unlimited();
+                Board helperBoard = board.clone();
+                // half of the helpers start one level deeper, so the threads are not all on the same depth at once
+                int startDepth = 1 + i % 2;
+
+                helpers.add(helper);
+                helperControls.add(helperControl);
+                helperSearches.add(this.searchThreads.runHelper(
+                        () -> helper.iterate(helperBoard, helperControl, startDepth, expectedMove)));
+            }
+
+            if (best == null) {
+                try {
+                    best = this.iterate(board, control, 0, expectedMove);
+                } finally {
+                    helperControls.forEach(SearchControl::abort);
+                    helperSearches.forEach(CompletableFuture::join);
+                }
+            }
+        } finally {
+            this.searchThreads.endMainSearch();
+        }
+
+        if (best == null) {
+            return null;
+        }
+
+        this.principalVariation = this.principalVariation(board, best.move());
+        Action bestAction = this.game.actionOf(board, best.move());
+        State nextState = this.game.result(state, bestAction, Queen.BLACK_ICON);
+
+        Instant endTime = Instant.now();
+        Duration timeTaken = Duration.between(startTime, endTime);
+
+        int numPawnHashHits = this.pawnHashTable.getNumHits();
+        int numPawnHashMisses = this.pawnHashTable.getNumMisses();
+        for (Bot helper : helpers) {
+            numPawnHashHits += helper.pawnHashTable.getNumHits();
+            numPawnHashMisses += helper.pawnHashTable.getNumMisses();
+            this.numNodesExpanded += helper.numNodesExpanded;
+            this.numTranspositionHits += helper.numTranspositionHits;
+            this.numTranspositionMisses += helper.numTranspositionMisses;
+            this.numCutoffs += helper.numCutoffs;
+            this.numFirstMoveCutoffs += helper.numFirstMoveCutoffs;
+            this.numTablebaseHits += helper.numTablebaseHits;
+        }
+
+        return new DecisionRecord(timeTaken, best.value(), bestAction, nextState.toJSON(), this.numNodesExpanded,
+                this.numTranspositionHits, this.numTranspositionMisses, this.numCutoffs, this.numFirstMoveCutoffs,
+                numPawnHashHits, numPawnHashMisses, this.numTablebaseHits, best.depth(), 1 + numHelpers, false);
+    }
+
+    /**
+     * Search the given board one level deeper at a time, from the start depth up to the intelligence level
+     * @param board the board of the root, where it is the bot turn
+     * @param control the limits of the search
+     * @param startDepth the depth of the first iteration
+     * @param expectedMove the move the first iteration searches first, or Move.NO_MOVE
+     * @return the deepest completed iteration, or null if none completed
+     */
+    protected Iteration iterate(Board board, SearchControl control, int startDepth, int expectedMove) {
+        this.moveOrdering.clear();
+        this.resetStatistics();
+        this.control = control;
+        this.isStopped = false;
+        this.hasCompletedIteration = false;
+        this.searchStartTime = Instant.now();
+
+        Iteration best = null;
+
+        for (int depth = startDepth; depth <= this.intelligenceLevel; depth++) {
+            this.depthLimit = depth;
+            Iteration iteration = this.searchRoot(board, best == null ? expectedMove : Move.key(best.move()));
+
+            if (iteration == null) {
+                break;
+            }
+
+            best = iteration;
+            this.hasCompletedIteration = true;
+
+            if (this.iterationListener != null) {
+                this.iterationListener.accept(this.recordOf(board, iteration));
+            }
+
+            if (control.isAborted() || control.isPastDeadline() || control.isOverNodeLimit()) {
+                break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Reset the statistics of the search
+     */
+    protected void resetStatistics() {
+        this.pawnHashTable.resetStatistics();
         this.numNodesExpanded = 0;
+        this.numTranspositionHits = 0;
+        this.numTranspositionMisses = 0;
+        this.numCutoffs = 0;
+        this.numFirstMoveCutoffs = 0;
+        this.numTablebaseHits = 0;
+    }
 
+    /**
+     * Search the root of the current iteration
+     * @param board the board of the root, where it is the bot turn
+     * @param hashMove the move searched first, which is the best move of the previous iteration, or Move.NO_MOVE
+     * @return the best move and its value, or null if the search stopped before it completed
+     */
+    protected Iteration searchRoot(Board board, int hashMove) {
         double minimaxValue = Double.NEGATIVE_INFINITY;
-        Action bestAction = null;
-        State nextState = null;
+        int bestMove = Move.NO_MOVE;
         this.numNodesExpanded++;
 
         double botBest = Double.NEGATIVE_INFINITY;
         double humanBest = Double.POSITIVE_INFINITY;
 
-        for (Action action : this.game.actions(state)) {
-            State result = this.game.result(state, action, Queen.BLACK_ICON);
-            double value = this.minValue(result, botBest, humanBest, 1);
+        int[] moves = this.moveBuffer(0);
+        int numMoves = MoveGenerator.generate(board, moves);
+        this.moveOrdering.order(board, moves, this.scoreBuffer(0), numMoves, hashMove, 0);
+
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            double value = this.minValue(board, botBest, humanBest, 1);
+            board.unmakeMove();
+
+            if (this.isStopped) {
+                return null;
+            }
 
             if (value > minimaxValue) {
                 minimaxValue = value;
-                bestAction = action;
-                nextState = result;
+                bestMove = moves[i];
             }
 
             botBest = Math.max(botBest, minimaxValue);
         }
 
-        if (bestAction == null) {
+        if (bestMove == Move.NO_MOVE) {
             return null;
         }
 
-        Instant endTime = Instant.now();
-        Duration timeTaken = Duration.between(startTime, endTime);
+        this.transpositionTable.store(board.getHash(), Move.key(bestMove), minimaxValue, this.remainingDepth(0),
+                TranspositionTable.EXACT);
 
-        return new DecisionRecord(timeTaken, minimaxValue, bestAction, nextState.toJSON(), this.numNodesExpanded);
+        return new Iteration(bestMove, minimaxValue, this.depthLimit);
     }
 
     /**
-     * Get the max value of the given state
-     * @param state the state
+     * Get the moves the last decision expects to be played
+     * @return the moves, starting with the action taken, or an empty array if there was no decision
+     */
+    public int[] getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    /**
+     * Follow the best moves stored in the transposition table from the given move
+     * @param board the board of the root
+     * @param firstMove the move of the root
+     * @return the moves, which stop at a move that is not an action of its board or at the end of the game
+     */
+    protected int[] principalVariation(Board board, int firstMove) {
+        int[] moves = new int[MAX_PRINCIPAL_VARIATION_LENGTH];
+        int length = 0;
+        int move = firstMove;
+
+        while (length < moves.length && move != Move.NO_MOVE && !this.game.isTerminal(board)) {
+            if (!MoveGenerator.isValid(board, move)) {
+                break;
+            }
+
+            board.makeMove(move);
+            moves[length++] = move;
+
+            long entry = this.transpositionTable.probe(board.getHash());
+            move = entry == TranspositionTable.MISS ? Move.NO_MOVE : TranspositionTable.moveOf(entry);
+        }
+
+        for (int i = 0; i < length; i++) {
+            board.unmakeMove();
+        }
+
+        return Arrays.copyOf(moves, length);
+    }
+
+    /**
+     * Create the record of the given iteration
+     * @param board the board of the root
+     * @param iteration the iteration
+     * @return the record
+     */
+    protected IterationRecord recordOf(Board board, Iteration iteration) {
+        int[] moves = this.principalVariation(board, iteration.move());
+        List<Action> principalVariation = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            principalVariation.add(this.game.actionOf(board, move));
+            board.makeMove(move);
+        }
+        for (int i = 0; i < moves.length; i++) {
+            board.unmakeMove();
+        }
+
+        return new IterationRecord(iteration.depth(), this.game.actionOf(board, iteration.move()), iteration.value(),
+                principalVariation,
+                this.numNodesExpanded, Duration.between(this.searchStartTime, Instant.now()));
+    }
+
+    /**
+     * The result of one iteration of the search
+     * @param move the best move, encoded by the move generator
+     * @param value the minimax value of the move
+     * @param depth the depth limit of the iteration
+     */
+    protected record Iteration(int move, double value, int depth) {}
+
+    /**
+     * Get the max value of the given board
+     * @param board the board
      * @param maxBest the best value for the max
      * @param minBest the best value for the min
      * @param depth the current depth
      * @return the value
      */
-    protected double maxValue(State state, double maxBest, double minBest, int depth) {
-        if (this.transpositionTable.containsKey(state)) {
-            return this.transpositionTable.get(state);
-        } else if (this.game.isTerminal(state)) {
-            return this.game.utility(state);
+    protected double maxValue(Board board, double maxBest, double minBest, int depth) {
+        if (this.shouldStop()) {
+            return 0.0;
+        }
+
+        long entry = this.probe(board);
+        if (TranspositionTable.isUsable(entry, this.remainingDepth(depth), maxBest, minBest)) {
+            return TranspositionTable.scoreOf(entry);
+        } else if (this.game.isTerminal(board)) {
+            return this.game.utility(board);
+        }
+
+        double tablebaseValue = this.probeTablebase(board);
+        if (!Double.isNaN(tablebaseValue)) {
+            return tablebaseValue;
         } else if (this.shouldCutOff(depth)) {
-            return this.game.evaluate(state);
+            return this.maxQuiescence(board, maxBest, minBest, depth);
         }
 
         double maxBestHere = Double.NEGATIVE_INFINITY;
+        int bestMove = Move.NO_MOVE;
+        final double originalMaxBest = maxBest;
         this.numNodesExpanded++;
 
-        for (Action action : this.game.actions(state)) {
-            State result = this.game.result(state, action);
-            double value = this.minValue(result, maxBest, minBest, depth+1);
+        int[] moves = this.moveBuffer(depth);
+        int numMoves = this.orderedMoves(board, moves, entry, depth);
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            double value = this.minValue(board, maxBest, minBest, depth+1);
+            board.unmakeMove();
+
+            if (this.isStopped) {
+                return 0.0;
+            }
 
             if (value > maxBestHere) {
                 maxBestHere = value;
+                bestMove = moves[i];
             }
 
             if (maxBestHere >= minBest) {
+                this.recordCutoff(board, moves[i], i, depth);
+                this.store(board, bestMove, maxBestHere, depth, TranspositionTable.LOWER_BOUND);
                 return maxBestHere;
             }
 
             maxBest = Math.max(maxBest, maxBestHere);
         }
 
-        this.transpositionTable.put(state, maxBestHere);
+        this.store(board, bestMove, maxBestHere, depth,
+                maxBestHere > originalMaxBest ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND);
 
         return maxBestHere;
     }
 
     /**
-     * Get the min value of the given state
-     * @param state the state
+     * Get the min value of the given board
+     * @param board the board
      * @param maxBest the best value for the max
      * @param minBest the best value for the min
      * @param depth the current depth
      * @return the value
      */
-    protected double minValue(State state, double maxBest, double minBest, int depth) {
-        if (this.transpositionTable.containsKey(state)) {
-            return this.transpositionTable.get(state);
-        } else if (this.game.isTerminal(state)) {
-            return this.game.utility(state);
+    protected double minValue(Board board, double maxBest, double minBest, int depth) {
+        if (this.shouldStop()) {
+            return 0.0;
+        }
+
+        long entry = this.probe(board);
+        if (TranspositionTable.isUsable(entry, this.remainingDepth(depth), maxBest, minBest)) {
+            return TranspositionTable.scoreOf(entry);
+        } else if (this.game.isTerminal(board)) {
+            return this.game.utility(board);
+        }
+
+        double tablebaseValue = this.probeTablebase(board);
+        if (!Double.isNaN(tablebaseValue)) {
+            return tablebaseValue;
         } else if (this.shouldCutOff(depth)) {
-            return this.game.evaluate(state);
+            return this.minQuiescence(board, maxBest, minBest, depth);
         }
 
         double minBestHere = Double.POSITIVE_INFINITY;
+        int bestMove = Move.NO_MOVE;
+        final double originalMinBest = minBest;
         this.numNodesExpanded++;
 
-        for (Action action : this.game.actions(state)) {
-            State result = this.game.result(state, action);
-            double value = this.maxValue(result, maxBest, minBest, depth+1);
+        int[] moves = this.moveBuffer(depth);
+        int numMoves = this.orderedMoves(board, moves, entry, depth);
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            double value = this.maxValue(board, maxBest, minBest, depth+1);
+            board.unmakeMove();
+
+            if (this.isStopped) {
+                return 0.0;
+            }
 
             if (value < minBestHere) {
                 minBestHere = value;
+                bestMove = moves[i];
             }
 
             if (minBestHere <= maxBest) {
+                this.recordCutoff(board, moves[i], i, depth);
+                this.store(board, bestMove, minBestHere, depth, TranspositionTable.UPPER_BOUND);
                 return minBestHere;
             }
 
             minBest = Math.min(minBest, minBestHere);
         }
 
-        this.transpositionTable.put(state, minBestHere);
+        this.store(board, bestMove, minBestHere, depth,
+                minBestHere < originalMinBest ? TranspositionTable.EXACT : TranspositionTable.LOWER_BOUND);
+
+        return minBestHere;
+    }
+
+    /**
+     * Get the max value of the given board at the depth limit by searching only the captures until the board is quiet,
+     * so the evaluation is not taken in the middle of an exchange. The bot can also stand pat, which is to keep the
+     * evaluation of the board instead of capturing.
+     * @param board the board
+     * @param maxBest the best value for the max
+     * @param minBest the best value for the min
+     * @param depth the current depth
+     * @return the value
+     */
+    protected double maxQuiescence(Board board, double maxBest, double minBest, int depth) {
+        if (this.shouldStop()) {
+            return 0.0;
+        } else if (this.game.isTerminal(board)) {
+            return this.game.utility(board);
+        }
+
+        double tablebaseValue = this.probeTablebase(board);
+        if (!Double.isNaN(tablebaseValue)) {
+            return tablebaseValue;
+        }
+
+        double standPat = this.game.evaluate(board, this.pawnHashTable);
+        if (standPat >= minBest) {
+            return standPat;
+        }
+
+        double maxBestHere = standPat;
+        maxBest = Math.max(maxBest, standPat);
+        this.numNodesExpanded++;
+
+        int[] moves = this.moveBuffer(depth);
+        int numMoves = MoveGenerator.generateCaptures(board, moves);
+        this.moveOrdering.order(board, moves, this.scoreBuffer(depth), numMoves, Move.NO_MOVE, depth);
+        for (int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            if (standPat + this.captureGain(board, move) + DELTA_MARGIN <= maxBest) {
+                continue;
+            }
+
+            board.makeMove(move);
+            double value = this.minQuiescence(board, maxBest, minBest, depth+1);
+            board.unmakeMove();
+
+            if (this.isStopped) {
+                return 0.0;
+            }
+
+            maxBestHere = Math.max(maxBestHere, value);
+            if (maxBestHere >= minBest) {
+                return maxBestHere;
+            }
+
+            maxBest = Math.max(maxBest, maxBestHere);
+        }
+
+        return maxBestHere;
+    }
+
+    /**
+     * Get the min value of the given board at the depth limit by searching only the captures until the board is quiet
+     * @param board the board
+     * @param maxBest the best value for the max
+     * @param minBest the best value for the min
+     * @param depth the current depth
+     * @return the value
+     */
+    protected double minQuiescence(Board board, double maxBest, double minBest, int depth) {
+        if (this.shouldStop()) {
+            return 0.0;
+        } else if (this.game.isTerminal(board)) {
+            return this.game.utility(board);
+        }
+
+        double tablebaseValue = this.probeTablebase(board);
+        if (!Double.isNaN(tablebaseValue)) {
+            return tablebaseValue;
+        }
+
+        double standPat = this.game.evaluate(board, this.pawnHashTable);
+        if (standPat <= maxBest) {
+            return standPat;
+        }
+
+        double minBestHere = standPat;
+        minBest = Math.min(minBest, standPat);
+        this.numNodesExpanded++;
+
+        int[] moves = this.moveBuffer(depth);
+        int numMoves = MoveGenerator.generateCaptures(board, moves);
+        this.moveOrdering.order(board, moves, this.scoreBuffer(depth), numMoves, Move.NO_MOVE, depth);
+        for (int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            if (standPat - this.captureGain(board, move) - DELTA_MARGIN >= minBest) {
+                continue;
+            }
+
+            board.makeMove(move);
+            double value = this.maxQuiescence(board, maxBest, minBest, depth+1);
+            board.unmakeMove();
+
+            if (this.isStopped) {
+                return 0.0;
+            }
+
+            minBestHere = Math.min(minBestHere, value);
+            if (minBestHere <= maxBest) {
+                return minBestHere;
+            }
+
+            minBest = Math.min(minBest, minBestHere);
+        }
 
         return minBestHere;
     }
+
+    /**
+     * Get the material the given capture wins, including the promotion of a pawn that captures onto the last row
+     * @param board the board before the capture is made
+     * @param move the capture made by the move generator
+     * @return the weight of the material
+     */
+    protected double captureGain(Board board, int move) {
+        double gain = Game.weightOf(Move.capturedOf(move));
+        if (Move.isPromotion(move)) {
+            gain += Game.weightOf(Board.QUEEN) - Game.weightOf(Board.PAWN);
+        }
+
+        return gain;
+    }
+
+    /**
+     * Get the array the moves of the given depth are generated into
+     * @param depth the depth
+     * @return the array
+     */
+    protected int[] moveBuffer(int depth) {
+        int[] moves = this.moveBuffers[depth];
+        if (moves == null) {
+            moves = new int[MoveGenerator.MAX_MOVES];
+            this.moveBuffers[depth] = moves;
+        }
+        return moves;
+    }
+
+    /**
+     * Get the array the moves of the given depth are ordered with
+     * @param depth the depth
+     * @return the array
+     */
+    protected int[] scoreBuffer(int depth) {
+        int[] scores = this.scoreBuffers[depth];
+        if (scores == null) {
+            scores = new int[MoveGenerator.MAX_MOVES];
+            this.scoreBuffers[depth] = scores;
+        }
+        return scores;
+    }
+
+    /**
+     * Generate the moves of the given board into the given array in the order they should be searched
+     * @param board the board
+     * @param moves the array of the depth
+     * @param entry the transposition table entry of the board
+     * @param depth the current depth
+     * @return the number of moves
+     */
+    protected int orderedMoves(Board board, int[] moves, long entry, int depth) {
+        int hashMove = entry == TranspositionTable.MISS ? Move.NO_MOVE : TranspositionTable.moveOf(entry);
+        int numMoves = MoveGenerator.generate(board, moves);
+        this.moveOrdering.order(board, moves, this.scoreBuffer(depth), numMoves, hashMove, depth);
+        return numMoves;
+    }
+
+    /**
+     * Record the cutoff caused by the given move
+     * @param board the board before the move is made
+     * @param move the move
+     * @param moveIndex the index of the move in the searched order
+     * @param depth the current depth
+     */
+    protected void recordCutoff(Board board, int move, int moveIndex, int depth) {
+        this.numCutoffs++;
+        if (moveIndex == 0) {
+            this.numFirstMoveCutoffs++;
+        }
+        this.moveOrdering.recordCutoff(board, move, depth, this.remainingDepth(depth));
+    }
+
+    /**
+     * Store the searched value of the given board in the transposition table
+     * @param board the board
+     * @param bestMove the best move found, or Move.NO_MOVE if there is none
+     * @param value the value
+     * @param depth the current depth
+     * @param bound the bound type of the value
+     */
+    protected void store(Board board, int bestMove, double value, int depth, int bound) {
+        this.transpositionTable.store(board.getHash(), Move.key(bestMove), value, this.remainingDepth(depth), bound);
+    }
 }
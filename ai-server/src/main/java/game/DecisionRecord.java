@@ -1,5 +1,6 @@
 package game;
 
+import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.time.Duration;
@@ -12,5 +13,67 @@ public record DecisionRecord(
         double minimaxValue,
         Action actionTaken,
         ObjectNode result,
-        int numNodesExpanded
-) {}
+        int numNodesExpanded,
+        int numTranspositionHits,
+        int numTranspositionMisses,
+        int numCutoffs,
+        int numFirstMoveCutoffs,
+        int numPawnHashHits,
+        int numPawnHashMisses,
+        int numTablebaseHits,
+        int depthReached,
+        int numThreads,
+        boolean fromBook
+) {
+
+    /**
+     * Create the record of an action taken from the opening book without searching
+     * @param timeTaken the time taken
+     * @param value the evaluated value of the board after the action
+     * @param actionTaken the action
+     * @param result the state after the action
+     * @return the record
+     */
+    public static DecisionRecord fromBook(Duration timeTaken, double value, Action actionTaken, ObjectNode result) {
+        return new DecisionRecord(timeTaken, value, actionTaken, result, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, true);
+    }
+
+    /**
+     * Return the number of nodes expanded per second by all threads of the search
+     * @return the number of nodes per second
+     */
+    @JsonGetter
+    public double nodesPerSecond() {
+        long nanos = this.timeTaken.toNanos();
+        return nanos == 0 ? 0.0 : this.numNodesExpanded * 1e9 / nanos;
+    }
+
+    /**
+     * Return the ratio of the transposition table lookups that found a stored value
+     * @return the ratio between 0 and 1
+     */
+    @JsonGetter
+    public double transpositionHitRate() {
+        int numProbes = this.numTranspositionHits + this.numTranspositionMisses;
+        return numProbes == 0 ? 0.0 : (double) this.numTranspositionHits / numProbes;
+    }
+
+    /**
+     * Return the ratio of the pawn structure lookups that found a cached value
+     * @return the ratio between 0 and 1
+     */
+    @JsonGetter
+    public double pawnHashHitRate() {
+        int numProbes = this.numPawnHashHits + this.numPawnHashMisses;
+        return numProbes == 0 ? 0.0 : (double) this.numPawnHashHits / numProbes;
+    }
+
+    /**
+     * Return the ratio of the cutoffs caused by the first action searched, which shows how well actions are ordered
+     * @return the ratio between 0 and 1
+     */
+    @JsonGetter
+    public double firstMoveCutoffRate() {
+        return this.numCutoffs == 0 ? 0.0 : (double) this.numFirstMoveCutoffs / this.numCutoffs;
+    }
+}
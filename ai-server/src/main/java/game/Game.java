@@ -3,8 +3,11 @@ package game;
 import org.jetbrains.annotations.Nullable;
 import piece.Pawn;
 import piece.Piece;
+import util.Position;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * The chess game
@@ -23,6 +26,11 @@ public class Game {
 
     protected static final double PAWNS_LOCATION_WEIGHT = 0.5;
 
+    /**
+     * The weight of the piece-square bonuses, which are in hundredths of a pawn
+     */
+    protected static final double PIECE_SQUARE_WEIGHT = 0.01;
+
     protected static final double MOBILITY_WEIGHT = 0.1;
 
     protected static final double MINIMAX_VALUE_RANGE = 245.5;
@@ -71,6 +79,63 @@ public class Game {
         return this.isBotTurn(state) ? state.getBotPlayer().actions(state.getHumanPlayer()) : state.getHumanPlayer().actions(state.getBotPlayer());
     }
 
+    /**
+     * Return all possible actions of the player of the current turn on the given board
+     * @param board the board
+     * @return the actions
+     */
+    public Collection<Action> actions(Board board) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int numMoves = MoveGenerator.generate(board, moves);
+
+        List<Action> actions = new ArrayList<>(numMoves);
+        for (int i = 0; i < numMoves; i++) {
+            actions.add(this.actionOf(board, moves[i]));
+        }
+        return actions;
+    }
+
+    /**
+     * Create the action of the given move of the player of the current turn, such as to answer a decision of the
+     * search that only keeps moves
+     * @param board the board
+     * @param move the move
+     * @return the action
+     */
+    public Action actionOf(Board board, int move) {
+        Player player = new Player(board, board.isBotTurn());
+        Position from = Board.position(Move.from(move));
+        Piece piece = player.findPieceAt(from)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("A piece at %s not found.", from)));
+        return new Action(piece, Board.position(Move.to(move)));
+    }
+
+    /**
+     * Get the weight of the given piece type in the evaluation
+     * @param type the piece type
+     * @return the weight
+     */
+    public static double weightOf(int type) {
+        return switch (type) {
+            case Board.PAWN -> NUM_PAWNS_WEIGHT;
+            case Board.KNIGHT, Board.BISHOP -> NUM_BISHOPS_KNIGHTS_WEIGHT;
+            case Board.ROOK -> NUM_ROOKS_WEIGHT;
+            case Board.QUEEN -> NUM_QUEEN_WEIGHT;
+            case Board.KING -> NUM_KING_WEIGHT;
+            default -> throw new IllegalArgumentException(String.format("The type %s is invalid", type));
+        };
+    }
+
+    /**
+     * Check if the game is over on the given board, which is when a king is captured or only the kings are left
+     * @param board the board
+     * @return true if it is, false otherwise
+     */
+    public boolean isTerminal(Board board) {
+        return board.count(Board.BOT, Board.KING) == 0 || board.count(Board.HUMAN, Board.KING) == 0
+                || (board.count(Board.BOT) == 1 && board.count(Board.HUMAN) == 1);
+    }
+
     /**
      * Return the result of the action applied
      * @param state the current state
@@ -96,8 +161,8 @@ public class Game {
         }
 
         Piece myPiece = myPlayer.findPieceAt(action.piece().getPosition()).orElseThrow();
+        opponent.killPieceAt(action.newPosition());
         myPiece.moveTo(action.newPosition());
-        opponent.killPieceAt(myPiece.getPosition());
 
         if (promotionIcon != null) {
             for (Pawn promotablePawn : myPlayer.getPromotablePawns()) {
@@ -109,7 +174,7 @@ public class Game {
         boolean isMyKingAlive = myPlayer.countKings() == 1;
         boolean isOpponentKingAlive = opponent.countKings() == 1;
 
-        if (myPlayer.allPieces().size() == 1 && isMyKingAlive && opponent.allPieces().size() == 1 && isOpponentKingAlive) {
+        if (myPlayer.countPieces() == 1 && isMyKingAlive && opponent.countPieces() == 1 && isOpponentKingAlive) {
             newState.setOutcome(null);
         } else if (!isMyKingAlive) {
             newState.setOutcome(opponent);
@@ -153,6 +218,25 @@ public class Game {
         }
     }
 
+    /**
+     * Calculate the utility of the given board
+     * @param board a terminal board
+     * @return the utility of the terminal board
+     */
+    public double utility(Board board) {
+        if (!this.isTerminal(board)) {
+            throw new IllegalArgumentException("This method shouldn't be used for a non-terminal board.");
+        }
+
+        if (board.count(Board.HUMAN, Board.KING) == 0) {
+            return MINIMAX_VALUE_RANGE;
+        } else if (board.count(Board.BOT, Board.KING) == 0) {
+            return -MINIMAX_VALUE_RANGE;
+        }
+
+        return 0.0;
+    }
+
     /**
      * Calculate the evaluated value of the non-terminal state
      * @param state a non-terminal state
@@ -163,20 +247,34 @@ public class Game {
             throw new IllegalArgumentException("This method shouldn't be used for a terminal state.");
         }
 
-        Player botPlayer = state.getBotPlayer();
-        Player humanPlayer = state.getHumanPlayer();
-
-        return NUM_KING_WEIGHT * (botPlayer.countKings() - humanPlayer.countKings())
-                + NUM_QUEEN_WEIGHT * (botPlayer.countQueens() - humanPlayer.countQueens())
-                + NUM_ROOKS_WEIGHT * (botPlayer.countRooks() - humanPlayer.countRooks())
-                + NUM_BISHOPS_KNIGHTS_WEIGHT * (
-                        botPlayer.countBishops() - humanPlayer.countBishops()
-                                + botPlayer.countKnights() - humanPlayer.countKnights())
-                + NUM_PAWNS_WEIGHT * (botPlayer.countPawns() - humanPlayer.countPawns())
-                - PAWNS_LOCATION_WEIGHT * (
-                        botPlayer.countDoubledPawns() - humanPlayer.countDoubledPawns()
-                                + botPlayer.countBlockedPawns(humanPlayer) - humanPlayer.countBlockedPawns(botPlayer)
-                                + botPlayer.countIsolatedPawns() - humanPlayer.countIsolatedPawns())
-                + MOBILITY_WEIGHT * (botPlayer.actions(humanPlayer).size() - humanPlayer.actions(botPlayer).size());
+        return this.evaluate(state.getBoard());
+    }
+
+    /**
+     * Calculate the evaluated value of the given board
+     * @param board a board of a non-terminal state
+     * @return the evaluated value
+     */
+    public double evaluate(Board board) {
+        return this.evaluate(board, null);
+    }
+
+    /**
+     * Calculate the evaluated value of the given board, looking up the pawn structure in the given table
+     * @param board a board of a non-terminal state
+     * @param pawnHashTable the cache of the pawn structure, or null to compute it
+     * @return the evaluated value
+     */
+    public double evaluate(Board board, @Nullable PawnHashTable pawnHashTable) {
+        // blocked pawns depend on the other pieces too, so they are not part of the cached pawn structure
+        int pawnStructure = pawnHashTable == null
+                ? PawnHashTable.computePawnStructure(board)
+                : pawnHashTable.pawnStructure(board);
+
+        return board.getMaterial(Board.BOT) - board.getMaterial(Board.HUMAN)
+                + PIECE_SQUARE_WEIGHT * (board.getPieceSquare(Board.BOT) - board.getPieceSquare(Board.HUMAN))
+                - PAWNS_LOCATION_WEIGHT * (pawnStructure
+                        + Player.countBlockedPawns(board, Board.BOT) - Player.countBlockedPawns(board, Board.HUMAN))
+                + MOBILITY_WEIGHT * (Player.countMobility(board, Board.BOT) - Player.countMobility(board, Board.HUMAN));
     }
 }
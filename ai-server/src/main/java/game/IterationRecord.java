@@ -0,0 +1,29 @@
+package game;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Record of one completed iteration of a search
+ */
+public record IterationRecord(
+        int depth,
+        Action bestAction,
+        double minimaxValue,
+        List<Action> principalVariation,
+        int numNodesExpanded,
+        Duration timeTaken
+) {
+
+    /**
+     * Return the number of nodes expanded per second by the main thread of the search
+     * @return the number of nodes per second
+     */
+    @JsonGetter
+    public double nodesPerSecond() {
+        long nanos = this.timeTaken.toNanos();
+        return nanos == 0 ? 0.0 : this.numNodesExpanded * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,125 @@
+package game;
+
+/**
+ * Moves packed into an int, so they can be stored without allocating.
+ * Bits 0-5 hold the square to move from and bits 6-11 the square to move to, which is the key of the move that the
+ * transposition table, the killer moves and the opening book store. The move generator also packs the type of the
+ * piece moved into bits 12-14, the type of the piece captured plus one into bits 15-17, which are 0 for a quiet move,
+ * and whether a pawn is promoted into bit 18, so the search can look at a move without reading the board.
+ */
+public final class Move {
+
+    public static final int NO_MOVE = 0;
+
+    protected static final int SQUARE_BITS = 6;
+
+    protected static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    protected static final int KEY_MASK = (1 << (2 * SQUARE_BITS)) - 1;
+
+    protected static final int PIECE_SHIFT = 2 * SQUARE_BITS;
+
+    protected static final int CAPTURED_SHIFT = PIECE_SHIFT + 3;
+
+    protected static final int PROMOTION_SHIFT = CAPTURED_SHIFT + 3;
+
+    protected static final int TYPE_MASK = 0x7;
+
+    private Move() {}
+
+    /**
+     * Encode the move between the given squares
+     * @param from the square to move from
+     * @param to the square to move to
+     * @return the move
+     */
+    public static int of(int from, int to) {
+        return from | (to << SQUARE_BITS);
+    }
+
+    /**
+     * Encode the move between the given squares with the pieces it moves and captures
+     * @param from the square to move from
+     * @param to the square to move to
+     * @param type the type of the piece moved
+     * @param captured the type of the piece captured, or Board.EMPTY
+     * @param isPromotion whether a pawn is promoted or not
+     * @return the move
+     */
+    public static int of(int from, int to, int type, int captured, boolean isPromotion) {
+        return of(from, to) | (type << PIECE_SHIFT) | ((captured + 1) << CAPTURED_SHIFT)
+                | ((isPromotion ? 1 : 0) << PROMOTION_SHIFT);
+    }
+
+    /**
+     * Encode the given action
+     * @param action the action
+     * @return the move
+     */
+    public static int of(Action action) {
+        return of(Board.square(action.piece().getPosition()), Board.square(action.newPosition()));
+    }
+
+    /**
+     * Get the square the move starts from
+     * @param move the move
+     * @return the square
+     */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Get the square the move ends at
+     * @param move the move
+     * @return the square
+     */
+    public static int to(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Get the key of the move, which is only its squares
+     * @param move the move
+     * @return the key
+     */
+    public static int key(int move) {
+        return move & KEY_MASK;
+    }
+
+    /**
+     * Get the type of the piece the move moves
+     * @param move the move made by the move generator
+     * @return the type
+     */
+    public static int pieceOf(int move) {
+        return (move >>> PIECE_SHIFT) & TYPE_MASK;
+    }
+
+    /**
+     * Get the type of the piece the move captures
+     * @param move the move made by the move generator
+     * @return the type, or Board.EMPTY if it is a quiet move
+     */
+    public static int capturedOf(int move) {
+        return ((move >>> CAPTURED_SHIFT) & TYPE_MASK) - 1;
+    }
+
+    /**
+     * Check if the move captures a piece
+     * @param move the move made by the move generator
+     * @return true if it does, false otherwise
+     */
+    public static boolean isCapture(int move) {
+        return ((move >>> CAPTURED_SHIFT) & TYPE_MASK) != 0;
+    }
+
+    /**
+     * Check if the move promotes a pawn
+     * @param move the move made by the move generator
+     * @return true if it does, false otherwise
+     */
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & 1) != 0;
+    }
+}
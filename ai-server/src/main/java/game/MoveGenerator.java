@@ -0,0 +1,147 @@
+package game;
+
+import piece.Attacks;
+
+/**
+ * Generates the moves of the player of the current turn as ints encoded by Move into an array the caller owns, so the
+ * search reuses the same array at each ply instead of creating pieces, positions and actions at each node.
+ * The moves come in the same order as the actions of Player: by the square they move from, then by the square they
+ * move to.
+ */
+public final class MoveGenerator {
+
+    /**
+     * The most moves a player can have on any board. With n pieces of its own, every move goes from one of them to
+     * one of the other 64 - n squares, so a player has at most n * (64 - n) <= 32 * 32 moves.
+     */
+    public static final int MAX_MOVES = 1024;
+
+    /**
+     * The row a pawn of each color starts on, from where it can step twice
+     */
+    protected static final int[] INITIAL_ROWS = {1, Board.BOARD_SIZE - 2};
+
+    /**
+     * The row a pawn of each color is promoted on
+     */
+    protected static final int[] PROMOTION_ROWS = {Board.BOARD_SIZE - 1, 0};
+
+    private MoveGenerator() {}
+
+    /**
+     * Write the moves of the player of the current turn into the given array
+     * @param board the board
+     * @param moves the array, which has room for MAX_MOVES moves
+     * @return the number of moves written
+     */
+    public static int generate(Board board, int[] moves) {
+        return generate(board, moves, -1L);
+    }
+
+    /**
+     * Write the moves of the player of the current turn that capture a piece into the given array
+     * @param board the board
+     * @param moves the array, which has room for MAX_MOVES moves
+     * @return the number of moves written
+     */
+    public static int generateCaptures(Board board, int[] moves) {
+        return generate(board, moves, board.getOccupancy(opponentOf(board)));
+    }
+
+    /**
+     * Write the moves of the player of the current turn to the given squares into the given array
+     * @param board the board
+     * @param moves the array
+     * @param allowedTargets the bitboard of the squares the moves can end at
+     * @return the number of moves written
+     */
+    protected static int generate(Board board, int[] moves, long allowedTargets) {
+        int color = colorOf(board);
+        int opponent = 1 - color;
+        int numMoves = 0;
+
+        for (long pieces = board.getOccupancy(color); pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            int type = board.typeAt(color, from);
+            boolean canPromote = type == Board.PAWN;
+
+            for (long targets = targets(board, color, type, from) & allowedTargets; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                boolean isPromotion = canPromote && to / Board.BOARD_SIZE == PROMOTION_ROWS[color];
+                moves[numMoves++] = Move.of(from, to, type, board.typeAt(opponent, to), isPromotion);
+            }
+        }
+
+        return numMoves;
+    }
+
+    /**
+     * Check if the given move is a move of the player of the current turn, such as a move read from the
+     * transposition table
+     * @param board the board
+     * @param move the move, of which only the squares are checked
+     * @return true if it is, false otherwise
+     */
+    public static boolean isValid(Board board, int move) {
+        int color = colorOf(board);
+        int from = Move.from(move);
+        int type = board.typeAt(color, from);
+        return type != Board.EMPTY && (targets(board, color, type, from) & (1L << Move.to(move))) != 0;
+    }
+
+    /**
+     * Get the squares the given piece can move to
+     * @param board the board
+     * @param color the color of the piece
+     * @param type the type of the piece
+     * @param square the square of the piece
+     * @return the bitboard of the squares
+     */
+    public static long targets(Board board, int color, int type, int square) {
+        long occupied = board.getOccupied();
+        long notOwn = ~board.getOccupancy(color);
+
+        return switch (type) {
+            case Board.PAWN -> pawnTargets(board, color, square);
+            case Board.KNIGHT -> Attacks.knight(square) & notOwn;
+            case Board.BISHOP -> Attacks.bishop(square, occupied) & notOwn;
+            case Board.ROOK -> Attacks.rook(square, occupied) & notOwn;
+            case Board.QUEEN -> Attacks.queen(square, occupied) & notOwn;
+            case Board.KING -> Attacks.king(square) & notOwn;
+            default -> throw new IllegalArgumentException(String.format("The type %s is invalid", type));
+        };
+    }
+
+    /**
+     * Get the squares the given pawn can move to, which are one or two empty squares forward and the pieces of the
+     * opponent diagonally forward
+     * @param board the board
+     * @param color the color of the pawn
+     * @param square the square of the pawn
+     * @return the bitboard of the squares
+     */
+    protected static long pawnTargets(Board board, int color, int square) {
+        long empty = ~board.getOccupied();
+        long bit = 1L << square;
+        boolean isOnInitialRow = square / Board.BOARD_SIZE == INITIAL_ROWS[color];
+
+        long pushes;
+        if (color == Board.BOT) {
+            pushes = (bit << Board.BOARD_SIZE) & empty;
+            pushes |= isOnInitialRow ? (pushes << Board.BOARD_SIZE) & empty : 0L;
+        } else {
+            pushes = (bit >>> Board.BOARD_SIZE) & empty;
+            pushes |= isOnInitialRow ? (pushes >>> Board.BOARD_SIZE) & empty : 0L;
+        }
+
+        return pushes | (Attacks.pawn(color, square) & board.getOccupancy(1 - color));
+    }
+
+    protected static int colorOf(Board board) {
+        return board.isBotTurn() ? Board.BOT : Board.HUMAN;
+    }
+
+    protected static int opponentOf(Board board) {
+        return board.isBotTurn() ? Board.HUMAN : Board.BOT;
+    }
+}
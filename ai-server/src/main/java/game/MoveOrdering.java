@@ -0,0 +1,127 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a search node so the ones most likely to cause a cutoff are tried first:
+ * the move stored in the transposition table, then captures from the most valuable victim and the least valuable
+ * attacker, then the killer moves of the ply, then the quiet moves by how often they caused cutoffs before.
+ */
+public class MoveOrdering {
+
+    protected static final int HASH_MOVE_SCORE = 3_000_000;
+
+    protected static final int CAPTURE_SCORE = 2_000_000;
+
+    protected static final int FIRST_KILLER_SCORE = 1_000_001;
+
+    protected static final int SECOND_KILLER_SCORE = 1_000_000;
+
+    protected static final int MAX_HISTORY_SCORE = 999_999;
+
+    protected static final int NUM_KILLERS = 2;
+
+    /**
+     * The values of the piece types used to rank captures, indexed by the piece type
+     */
+    protected static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 200};
+
+    /**
+     * The quiet moves that caused the last cutoffs, indexed by ply * NUM_KILLERS
+     */
+    protected final int[] killers;
+
+    /**
+     * The cutoff scores of the quiet moves, indexed by color and the from and to squares of the move
+     */
+    protected final int[] history;
+
+    public MoveOrdering() {
+        this.killers = new int[Board.MAX_PLY * NUM_KILLERS];
+        this.history = new int[2 * Board.NUM_SQUARES * Board.NUM_SQUARES];
+    }
+
+    /**
+     * Forget the killer moves and the history of the previous searches
+     */
+    public void clear() {
+        Arrays.fill(this.killers, Move.NO_MOVE);
+        Arrays.fill(this.history, 0);
+    }
+
+    /**
+     * Order the given moves of the player of the current turn in place
+     * @param board the board
+     * @param moves the moves made by the move generator
+     * @param scores the array the scores of the moves are kept in while they are ordered, as long as the moves
+     * @param numMoves the number of moves
+     * @param hashMove the key of the move stored in the transposition table, or Move.NO_MOVE
+     * @param ply the distance from the root
+     */
+    public void order(Board board, int[] moves, int[] scores, int numMoves, int hashMove, int ply) {
+        for (int i = 0; i < numMoves; i++) {
+            scores[i] = this.score(board, moves[i], hashMove, ply);
+        }
+
+        // insertion sort, since there are rarely more than a few dozen moves
+        for (int i = 1; i < numMoves; i++) {
+            int score = scores[i];
+            int move = moves[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                scores[j + 1] = scores[j];
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            scores[j + 1] = score;
+            moves[j + 1] = move;
+        }
+    }
+
+    /**
+     * Remember the move that caused a cutoff. Captures are already ordered first, so only quiet moves are kept.
+     * @param board the board before the move is made
+     * @param move the move made by the move generator
+     * @param ply the distance from the root
+     * @param remainingDepth the depth searched below the node
+     */
+    public void recordCutoff(Board board, int move, int ply, int remainingDepth) {
+        if (Move.isCapture(move)) {
+            return;
+        }
+
+        int key = Move.key(move);
+        int slot = ply * NUM_KILLERS;
+        if (this.killers[slot] != key) {
+            this.killers[slot + 1] = this.killers[slot];
+            this.killers[slot] = key;
+        }
+
+        int index = historyIndex(board.isBotTurn() ? Board.BOT : Board.HUMAN, move);
+        this.history[index] = Math.min(this.history[index] + remainingDepth * remainingDepth, MAX_HISTORY_SCORE);
+    }
+
+    protected int score(Board board, int move, int hashMove, int ply) {
+        int key = Move.key(move);
+        if (key == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+
+        if (Move.isCapture(move)) {
+            return CAPTURE_SCORE + 10 * PIECE_VALUES[Move.capturedOf(move)] - PIECE_VALUES[Move.pieceOf(move)];
+        }
+
+        int slot = ply * NUM_KILLERS;
+        if (key == this.killers[slot]) {
+            return FIRST_KILLER_SCORE;
+        } else if (key == this.killers[slot + 1]) {
+            return SECOND_KILLER_SCORE;
+        }
+
+        return this.history[historyIndex(board.isBotTurn() ? Board.BOT : Board.HUMAN, move)];
+    }
+
+    protected static int historyIndex(int color, int move) {
+        return color * Board.NUM_SQUARES * Board.NUM_SQUARES + Move.from(move) * Board.NUM_SQUARES + Move.to(move);
+    }
+}
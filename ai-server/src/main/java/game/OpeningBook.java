@@ -0,0 +1,177 @@
+package game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * A read-only opening book memory-mapped from a file.
+ * The file is a header of the magic number and the number of entries, followed by the entries sorted by key.
+ * Each entry is the Zobrist key of a board where it is the bot turn, a move and the number of recorded games that
+ * played the move. A board has one entry for each of its moves, and the most played one is chosen.
+ * Lookups only use absolute reads of the buffer, so the book can be shared between threads.
+ */
+public class OpeningBook {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The system property that sets the path of the book shared by every search in this process
+     */
+    public static final String PATH_PROPERTY = "engine.book";
+
+    /**
+     * The ASCII bytes of CNCBOOK1
+     */
+    protected static final long MAGIC = 0x434E43424F4F4B31L;
+
+    protected static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    protected static final int ENTRY_SIZE = Long.BYTES + Short.BYTES + Short.BYTES;
+
+    protected static final int MOVE_OFFSET = Long.BYTES;
+
+    protected static final int WEIGHT_OFFSET = Long.BYTES + Short.BYTES;
+
+    protected static final int MAX_WEIGHT = 0xFFFF;
+
+    protected static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(0), 0);
+
+    protected final ByteBuffer buffer;
+
+    protected final int numEntries;
+
+    protected OpeningBook(ByteBuffer buffer, int numEntries) {
+        this.buffer = buffer;
+        this.numEntries = numEntries;
+    }
+
+    /**
+     * Map the book of the given file
+     * @param path the path of the file
+     * @return the book
+     * @throws IOException if the file cannot be read
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+                throw new IOException(String.format("The file %s is not an opening book", path));
+            }
+
+            int numEntries = buffer.getInt(Long.BYTES);
+            if (numEntries < 0 || (long) HEADER_SIZE + (long) numEntries * ENTRY_SIZE != buffer.capacity()) {
+                throw new IOException(String.format("The opening book %s is truncated", path));
+            }
+
+            return new OpeningBook(buffer, numEntries);
+        }
+    }
+
+    /**
+     * Get the book shared by every search in this process. It is read from the file of the engine.book property,
+     * and is empty if the property is not set or the file cannot be read.
+     * @return the book
+     */
+    public static OpeningBook getShared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    private static class SharedHolder {
+        private static final OpeningBook INSTANCE = load(System.getProperty(PATH_PROPERTY));
+
+        private static OpeningBook load(String path) {
+            if (path == null || !Files.isReadable(Path.of(path))) {
+                return EMPTY;
+            }
+
+            try {
+                OpeningBook book = open(Path.of(path));
+                logger.info("Loaded the opening book {} with {} entries", path, book.size());
+                return book;
+            } catch (IOException e) {
+                logger.error("Failed to load the opening book {}", path, e);
+                return EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Get the number of entries
+     * @return the number of entries
+     */
+    public int size() {
+        return this.numEntries;
+    }
+
+    /**
+     * Find the most played move of the board with the given key
+     * @param key the Zobrist key of the board
+     * @return the move, or Move.NO_MOVE if the board is not in the book
+     */
+    public int probe(long key) {
+        int bestMove = Move.NO_MOVE;
+        int bestWeight = -1;
+
+        for (int i = this.lowerBound(key); i < this.numEntries && this.keyAt(i) == key; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            int weight = Short.toUnsignedInt(this.buffer.getShort(offset + WEIGHT_OFFSET));
+            if (weight > bestWeight) {
+                bestWeight = weight;
+                bestMove = Short.toUnsignedInt(this.buffer.getShort(offset + MOVE_OFFSET));
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Find the most played action of the bot on the given board. The move of the book is only trusted if it is one
+     * of the actions of the board, since different boards can share a key.
+     * @param board the board, where it is the bot turn
+     * @return the action, or empty if the board is not in the book
+     */
+    public Optional<Action> find(Board board) {
+        if (this.numEntries == 0 || !board.isBotTurn()) {
+            return Optional.empty();
+        }
+
+        int move = this.probe(board.getHash());
+        if (move == Move.NO_MOVE) {
+            return Optional.empty();
+        }
+
+        return MoveGenerator.isValid(board, move) ? Optional.of(new Game().actionOf(board, move)) : Optional.empty();
+    }
+
+    /**
+     * Find the index of the first entry whose key is not less than the given key
+     * @param key the key
+     * @return the index, or the number of entries if there is none
+     */
+    protected int lowerBound(long key) {
+        int low = 0;
+        int high = this.numEntries;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    protected long keyAt(int index) {
+        return this.buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+}
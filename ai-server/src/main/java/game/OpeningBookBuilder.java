@@ -0,0 +1,151 @@
+package game;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Builds an opening book file from recorded games.
+ * A game is a line of moves separated by spaces, played from the initial board where the human moves first.
+ * Each move is the four digits of the x and y of the square to move from, then of the square to move to,
+ * such as 3634 for the pawn at x 3 and y 6 moving two rows forward.
+ * Only the moves of the bot within the first plies of each game are recorded.
+ */
+public class OpeningBookBuilder {
+
+    protected static final int DEFAULT_MAX_PLY = 16;
+
+    /**
+     * The number of plies of each game that are recorded
+     */
+    protected final int maxPly;
+
+    /**
+     * The number of games that played each move, indexed by the key of the board and then the move
+     */
+    protected final Map<Long, Map<Integer, Integer>> weights;
+
+    protected final Game game;
+
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+        this.weights = new HashMap<>();
+        this.game = new Game();
+    }
+
+    /**
+     * Record the given game
+     * @param line the moves of the game
+     */
+    public void addGame(String line) {
+        Board board = Board.initial();
+        board.setBotTurn(false);
+
+        String[] moves = line.trim().split("\\s+");
+        List<long[]> botMoves = new ArrayList<>();
+        for (int ply = 0; ply < moves.length && ply < this.maxPly && !moves[ply].isEmpty(); ply++) {
+            if (this.game.isTerminal(board)) {
+                break;
+            }
+
+            int move = parseMove(moves[ply]);
+            if (!MoveGenerator.isValid(board, move)) {
+                throw new IllegalArgumentException(String.format("The move %s at ply %d is not legal", moves[ply], ply));
+            }
+
+            if (board.isBotTurn()) {
+                botMoves.add(new long[] {board.getHash(), move});
+            }
+
+            board.makeMove(move);
+        }
+
+        // only games that are legal to the end are recorded
+        for (long[] botMove : botMoves) {
+            this.weights.computeIfAbsent(botMove[0], key -> new HashMap<>()).merge((int) botMove[1], 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Parse a move of a recorded game
+     * @param text the four digits of the move
+     * @return the move encoded by Move
+     */
+    protected static int parseMove(String text) {
+        if (text.length() != 4 || !text.chars().allMatch(c -> '0' <= c && c < '0' + Board.BOARD_SIZE)) {
+            throw new IllegalArgumentException(String.format("The move %s is invalid", text));
+        }
+
+        int from = Board.square(text.charAt(0) - '0', text.charAt(1) - '0');
+        int to = Board.square(text.charAt(2) - '0', text.charAt(3) - '0');
+        return Move.of(from, to);
+    }
+
+    /**
+     * Write the book of the recorded games
+     * @param path the path of the file
+     * @param minWeight the number of games a move must be played in to be written
+     * @return the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public int write(Path path, int minWeight) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        this.weights.forEach((key, moves) -> moves.forEach((move, weight) -> {
+            if (weight >= minWeight) {
+                entries.add(new long[] {key, move, Math.min(weight, OpeningBook.MAX_WEIGHT)});
+            }
+        }));
+        entries.sort(Comparator.comparingLong(entry -> entry[0]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + entries.size() * OpeningBook.ENTRY_SIZE);
+        buffer.putLong(OpeningBook.MAGIC);
+        buffer.putInt(entries.size());
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]);
+            buffer.putShort((short) entry[1]);
+            buffer.putShort((short) entry[2]);
+        }
+
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            outputStream.write(buffer.array());
+        }
+
+        return entries.size();
+    }
+
+    /**
+     * Build a book from the command line
+     * @param args the file of the recorded games, the file of the book, and optionally the number of plies to record
+     *             and the number of games a move must be played in
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: OpeningBookBuilder <games file> <book file> [max ply] [min weight]");
+            System.exit(1);
+        }
+
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        int minWeight = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        List<String> lines = Files.readAllLines(Path.of(args[0]));
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+
+            try {
+                builder.addGame(lines.get(i));
+            } catch (IllegalArgumentException e) {
+                System.out.printf("Skipped the game at line %d: %s%n", i + 1, e.getMessage());
+            }
+        }
+
+        int numEntries = builder.write(Path.of(args[1]), minWeight);
+        System.out.printf("Wrote %d entries to %s%n", numEntries, args[1]);
+    }
+}
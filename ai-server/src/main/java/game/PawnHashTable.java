@@ -0,0 +1,98 @@
+package game;
+
+/**
+ * A small cache of the pawn structure terms of the evaluation, keyed by the pawn hash of the board.
+ * The pawns rarely change between sibling nodes of a search, so most lookups hit.
+ * It is not thread safe, so each search keeps its own.
+ */
+public class PawnHashTable {
+
+    protected static final int DEFAULT_NUM_ENTRIES = 1 << 14;
+
+    protected final long[] keys;
+
+    protected final int[] values;
+
+    protected final boolean[] isFilled;
+
+    protected final int indexMask;
+
+    protected int numHits;
+
+    protected int numMisses;
+
+    public PawnHashTable() {
+        this(DEFAULT_NUM_ENTRIES);
+    }
+
+    /**
+     * Create the table with the given number of entries
+     * @param numEntries the number of entries. It must be a power of two.
+     */
+    public PawnHashTable(int numEntries) {
+        if (numEntries < 1 || Integer.bitCount(numEntries) != 1) {
+            throw new IllegalArgumentException(String.format("The number of entries must be a power of two. Given: %s", numEntries));
+        }
+
+        this.keys = new long[numEntries];
+        this.values = new int[numEntries];
+        this.isFilled = new boolean[numEntries];
+        this.indexMask = numEntries - 1;
+    }
+
+    /**
+     * Get the pawn structure penalty of the given board, from the cache if present
+     * @param board the board
+     * @return the number of doubled and isolated pawns of the bot minus those of the human
+     */
+    public int pawnStructure(Board board) {
+        long key = board.getPawnHash();
+        int index = (int) (key ^ (key >>> 32)) & this.indexMask;
+
+        if (this.isFilled[index] && this.keys[index] == key) {
+            this.numHits++;
+            return this.values[index];
+        }
+
+        this.numMisses++;
+        int value = computePawnStructure(board);
+        this.keys[index] = key;
+        this.values[index] = value;
+        this.isFilled[index] = true;
+        return value;
+    }
+
+    /**
+     * Compute the pawn structure penalty of the given board
+     * @param board the board
+     * @return the number of doubled and isolated pawns of the bot minus those of the human
+     */
+    public static int computePawnStructure(Board board) {
+        return Player.countDoubledPawns(board, Board.BOT) - Player.countDoubledPawns(board, Board.HUMAN)
+                + Player.countIsolatedPawns(board, Board.BOT) - Player.countIsolatedPawns(board, Board.HUMAN);
+    }
+
+    /**
+     * Reset the hit and miss counts. The entries are kept, since they stay valid.
+     */
+    public void resetStatistics() {
+        this.numHits = 0;
+        this.numMisses = 0;
+    }
+
+    /**
+     * Get the number of lookups that found the pawn structure since the last reset
+     * @return the number of hits
+     */
+    public int getNumHits() {
+        return this.numHits;
+    }
+
+    /**
+     * Get the number of lookups that computed the pawn structure since the last reset
+     * @return the number of misses
+     */
+    public int getNumMisses() {
+        return this.numMisses;
+    }
+}
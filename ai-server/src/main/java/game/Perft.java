@@ -0,0 +1,274 @@
+package game;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaves of the tree of actions to a fixed depth, which checks the move generation against known counts
+ * and measures its speed apart from the search.
+ * The tree is walked with the same move generator and make/unmake as the search. A board where the game is over has no
+ * actions, so its subtree counts nothing.
+ */
+public class Perft {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The resource of the reference counts, which were checked with a separate move generator
+     */
+    public static final String REFERENCES_RESOURCE = "/perft/references.json";
+
+    protected static final Game game = new Game();
+
+    /**
+     * The known leaf counts of a position
+     * @param name the name of the position
+     * @param board the board string
+     * @param isBotTurn whether it is a bot turn or not
+     * @param counts the number of leaves indexed by the depth
+     */
+    public record Reference(String name, String board, boolean isBotTurn, long[] counts) {}
+
+    /**
+     * Count the leaves of the given board to the given depth on the calling thread
+     * @param board the board
+     * @param depth the depth
+     * @return the number of leaves
+     */
+    public static long count(Board board, int depth) {
+        return count(board, depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Count the leaves of the given board to the given depth, generating the moves of each depth into its own array
+     * @param board the board
+     * @param depth the depth
+     * @param moveBuffers the arrays of the moves indexed by the depth left
+     * @return the number of leaves
+     */
+    protected static long count(Board board, int depth, int[][] moveBuffers) {
+        if (depth == 0) {
+            return 1;
+        } else if (game.isTerminal(board)) {
+            return 0;
+        } else if (depth == 1) {
+            // the leaves are only generated, not made
+            return MoveGenerator.generate(board, moveBuffers[1]);
+        }
+
+        int[] moves = moveBuffers[depth];
+        int numMoves = MoveGenerator.generate(board, moves);
+
+        long numLeaves = 0;
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            numLeaves += count(board, depth - 1, moveBuffers);
+            board.unmakeMove();
+        }
+        return numLeaves;
+    }
+
+    /**
+     * Count the leaves of the given board to the given depth like count, stopping as soon as the given control is
+     * aborted or reaches its limits, where every board that is not a leaf counts as a node
+     * @param board the board
+     * @param depth the depth
+     * @param moveBuffers the arrays of the moves indexed by the depth left
+     * @param control the limits of the count, which is aborted if they are reached
+     * @return the number of leaves, which is only part of them if the control is aborted
+     */
+    protected static long count(Board board, int depth, int[][] moveBuffers, SearchControl control) {
+        if (depth == 0) {
+            return 1;
+        } else if (control.isAborted() || control.visit()) {
+            // the clock is only read once every few nodes, so the control is aborted to stop at every node after it
+            control.abort();
+            return 0;
+        } else if (game.isTerminal(board)) {
+            return 0;
+        } else if (depth == 1) {
+            return MoveGenerator.generate(board, moveBuffers[1]);
+        }
+
+        int[] moves = moveBuffers[depth];
+        int numMoves = MoveGenerator.generate(board, moves);
+
+        long numLeaves = 0;
+        for (int i = 0; i < numMoves; i++) {
+            board.makeMove(moves[i]);
+            numLeaves += count(board, depth - 1, moveBuffers, control);
+            board.unmakeMove();
+        }
+        return numLeaves;
+    }
+
+    /**
+     * Count the leaves of the given board to the given depth, searching the subtree of each root action as a separate
+     * task of the given pool
+     * @param board the board
+     * @param depth the depth
+     * @param pool the pool
+     * @return the number of leaves
+     */
+    public static long count(Board board, int depth, ForkJoinPool pool) {
+        return pool.invoke(new RootTask(board, depth));
+    }
+
+    /**
+     * Count the leaves of the given board to the given depth in parallel on the common pool and measure the time
+     * taken. It has no limit, so it is only run from the command line.
+     * @param board the board
+     * @param depth the depth
+     * @return the result
+     */
+    public static PerftRecord run(Board board, int depth) {
+        Instant startTime = Instant.now();
+        long numLeaves = count(board, depth, ForkJoinPool.commonPool());
+        Duration timeTaken = Duration.between(startTime, Instant.now());
+
+        return new PerftRecord(depth, numLeaves, timeTaken);
+    }
+
+    /**
+     * Count the leaves of the given board to the given depth on the calling thread within the limits of the given
+     * control and measure the time taken
+     * @param board the board
+     * @param depth the depth
+     * @param control the limits of the count
+     * @return the result, or empty if the count was aborted or reached a limit before it ended
+     */
+    public static Optional<PerftRecord> run(Board board, int depth, SearchControl control) {
+        Instant startTime = Instant.now();
+        long numLeaves = count(board, depth, new int[depth + 1][MoveGenerator.MAX_MOVES], control);
+        Duration timeTaken = Duration.between(startTime, Instant.now());
+
+        return control.isAborted() ? Optional.empty() : Optional.of(new PerftRecord(depth, numLeaves, timeTaken));
+    }
+
+    /**
+     * Load the reference counts
+     * @return the references
+     */
+    public static List<Reference> loadReferences() {
+        try (InputStream inputStream = Perft.class.getResourceAsStream(REFERENCES_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("The resource " + REFERENCES_RESOURCE + " is not found.");
+            }
+
+            return new ObjectMapper().readValue(inputStream, new TypeReference<List<Reference>>() {});
+        } catch (IOException e) {
+            throw logger.throwing(new RuntimeException(e));
+        }
+    }
+
+    /**
+     * Count the leaves of the reference positions up to the given depth and compare them with the reference counts
+     * @param maxDepth the maximum depth to count
+     * @return the descriptions of the counts that differ, which is empty if all of them match
+     */
+    public static List<String> verify(int maxDepth) {
+        List<String> mismatches = new ArrayList<>();
+
+        for (Reference reference : loadReferences()) {
+            Board board = State.parse(reference.board(), reference.isBotTurn()).getBoard();
+            for (int depth = 0; depth <= maxDepth && depth < reference.counts().length; depth++) {
+                PerftRecord perftRecord = run(board, depth);
+                long expected = reference.counts()[depth];
+
+                logger.info("{} at depth {}: {} leaves, expected {}, {} leaves/s", reference.name(), depth,
+                        perftRecord.numLeaves(), expected, Math.round(perftRecord.leavesPerSecond()));
+
+                if (perftRecord.numLeaves() != expected) {
+                    mismatches.add(String.format("%s at depth %d: %d leaves, expected %d", reference.name(), depth,
+                            perftRecord.numLeaves(), expected));
+                }
+            }
+        }
+
+        return mismatches;
+    }
+
+    /**
+     * Run perft from the command line, counting the leaves of the initial board where the human moves first
+     * @param args the depth
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Board board = Board.initial();
+        board.setBotTurn(false);
+
+        PerftRecord perftRecord = run(board, depth);
+        System.out.printf("depth %d: %d leaves in %d ms, %d leaves/s%n", perftRecord.depth(), perftRecord.numLeaves(),
+                perftRecord.timeTaken().toMillis(), Math.round(perftRecord.leavesPerSecond()));
+    }
+
+    /**
+     * Counts the subtree of each root action as a separate task
+     */
+    protected static class RootTask extends RecursiveTask<Long> {
+
+        protected final Board board;
+
+        protected final int depth;
+
+        protected RootTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.depth <= 1 || game.isTerminal(this.board)) {
+                return count(this.board, this.depth);
+            }
+
+            List<SubtreeTask> subtrees = new ArrayList<>();
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int numMoves = MoveGenerator.generate(this.board, moves);
+            for (int i = 0; i < numMoves; i++) {
+                Board child = this.board.clone();
+                child.makeMove(moves[i]);
+                subtrees.add(new SubtreeTask(child, this.depth - 1));
+            }
+
+            long numLeaves = 0;
+            for (SubtreeTask subtree : ForkJoinTask.invokeAll(subtrees)) {
+                numLeaves += subtree.join();
+            }
+            return numLeaves;
+        }
+    }
+
+    /**
+     * Counts the subtree of one root action on its own copy of the board
+     */
+    protected static class SubtreeTask extends RecursiveTask<Long> {
+
+        protected final Board board;
+
+        protected final int depth;
+
+        protected SubtreeTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return count(this.board, this.depth);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package game;
+
+import com.fasterxml.jackson.annotation.JsonGetter;
+
+import java.time.Duration;
+
+/**
+ * Record of a perft count
+ */
+public record PerftRecord(
+        int depth,
+        long numLeaves,
+        Duration timeTaken
+) {
+
+    /**
+     * Return the number of leaves counted per second
+     * @return the number of leaves per second
+     */
+    @JsonGetter
+    public double leavesPerSecond() {
+        long nanos = this.timeTaken.toNanos();
+        return nanos == 0 ? 0.0 : this.numLeaves * 1e9 / nanos;
+    }
+}
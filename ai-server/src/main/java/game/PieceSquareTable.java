@@ -0,0 +1,140 @@
+package game;
+
+/**
+ * The material of each piece type and the bonus of each piece type on each square, which the board sums
+ * incrementally as pieces are added, removed and moved.
+ * The bonuses are in hundredths of a pawn. Each table is written as seen by the player it scores, with the row the
+ * pawns promote on first, so it is read as is for the human and flipped vertically for the bot.
+ */
+public final class PieceSquareTable {
+
+    /**
+     * The material of each piece type, indexed by the piece type. They are the weights of the evaluation.
+     */
+    protected static final int[] MATERIAL = {
+            (int) Game.NUM_PAWNS_WEIGHT,
+            (int) Game.NUM_BISHOPS_KNIGHTS_WEIGHT,
+            (int) Game.NUM_BISHOPS_KNIGHTS_WEIGHT,
+            (int) Game.NUM_ROOKS_WEIGHT,
+            (int) Game.NUM_QUEEN_WEIGHT,
+            (int) Game.NUM_KING_WEIGHT
+    };
+
+    protected static final int[] PAWN = {
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    protected static final int[] KNIGHT = {
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+    };
+
+    protected static final int[] BISHOP = {
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+    };
+
+    protected static final int[] ROOK = {
+             0,  0,  0,  0,  0,  0,  0,  0,
+             5, 10, 10, 10, 10, 10, 10,  5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+             0,  0,  0,  5,  5,  0,  0,  0
+    };
+
+    protected static final int[] QUEEN = {
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+    };
+
+    /**
+     * The king has no castling to hide behind, so it is only kept home and away from the center
+     */
+    protected static final int[] KING = {
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             10, 10,  0,  0,  0,  0, 10, 10,
+             10, 20, 10,  0,  0, 10, 20, 10
+    };
+
+    /**
+     * The bonuses indexed by color * NUM_PIECE_TYPES + type, then by square
+     */
+    protected static final int[][] TABLES = new int[2 * Board.NUM_PIECE_TYPES][];
+
+    static {
+        int[][] humanTables = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+        for (int type = 0; type < Board.NUM_PIECE_TYPES; type++) {
+            int[] botTable = new int[Board.NUM_SQUARES];
+            for (int square = 0; square < Board.NUM_SQUARES; square++) {
+                botTable[square] = humanTables[type][flip(square)];
+            }
+
+            TABLES[Board.BOT * Board.NUM_PIECE_TYPES + type] = botTable;
+            TABLES[Board.HUMAN * Board.NUM_PIECE_TYPES + type] = humanTables[type];
+        }
+    }
+
+    private PieceSquareTable() {}
+
+    /**
+     * Get the material of the given piece type
+     * @param type the type
+     * @return the material
+     */
+    public static int materialOf(int type) {
+        return MATERIAL[type];
+    }
+
+    /**
+     * Get the bonus of the piece of the given color and type on the given square
+     * @param color the color
+     * @param type the type
+     * @param square the square
+     * @return the bonus in hundredths of a pawn
+     */
+    public static int valueOf(int color, int type, int square) {
+        return TABLES[color * Board.NUM_PIECE_TYPES + type][square];
+    }
+
+    /**
+     * Get the square in the same column on the opposite row
+     * @param square the square
+     * @return the flipped square
+     */
+    protected static int flip(int square) {
+        return square ^ (Board.NUM_SQUARES - Board.BOARD_SIZE);
+    }
+}
@@ -1,59 +1,46 @@
 package game;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import piece.*;
 import util.Position;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class Player implements Cloneable {
+/**
+ * A view of the pieces of one color on the board
+ */
+public class Player {
 
-    private static final Logger logger = LogManager.getLogger();
+    /**
+     * The squares of each column, indexed by x
+     */
+    protected static final long[] FILE_MASKS = new long[Board.BOARD_SIZE];
 
-    protected boolean isBot;
+    static {
+        for (int x = 0; x < Board.BOARD_SIZE; x++) {
+            FILE_MASKS[x] = 0x0101010101010101L << x;
+        }
+    }
 
-    protected Set<Piece> pieces;
+    /**
+     * The row a bot pawn reaches with one step from its initial row, from where it can step again
+     */
+    protected static final long BOT_SINGLE_PUSH_ROW = 0xFFL << (2 * Board.BOARD_SIZE);
 
+    /**
+     * The row a human pawn reaches with one step from its initial row, from where it can step again
+     */
+    protected static final long HUMAN_SINGLE_PUSH_ROW = 0xFFL << (5 * Board.BOARD_SIZE);
 
-    public Player(boolean isBot) {
-        this.isBot = isBot;
-        this.pieces = new HashSet<>();
+    protected final Board board;
 
-        final int PAWN_ROW = isBot ? 1 : 6;
+    protected final boolean isBot;
 
-        final int NUM_PAWNS = 8;
-        for (int j = 0; j < NUM_PAWNS; j++) {
-            this.pieces.add(new Pawn(this, new Position(j, PAWN_ROW)));
-        }
+    protected final int color;
 
-        final int PIECE_ROW = isBot ? 0 : 7;
-
-        final int BISHOP1_COL = 2;
-        final int BISHOP2_COL = 5;
-        final int KNIGHT1_COl = 1;
-        final int KNIGHT2_COL = 6;
-        final int ROOK1_COL = 0;
-        final int ROOK2_COL = 7;
-        final int KING_COL = 3;
-        final int QUEEN_COL = 4;
-
-        this.pieces.addAll(List.of(
-                new Bishop(this, new Position(BISHOP1_COL, PIECE_ROW)),
-                new Bishop(this, new Position(BISHOP2_COL, PIECE_ROW)),
-                new Knight(this, new Position(KNIGHT1_COl, PIECE_ROW)),
-                new Knight(this, new Position(KNIGHT2_COL, PIECE_ROW)),
-                new Rook(this, new Position(ROOK1_COL, PIECE_ROW)),
-                new Rook(this, new Position(ROOK2_COL, PIECE_ROW)),
-                new King(this, new Position(KING_COL, PIECE_ROW)),
-                new Queen(this, new Position(QUEEN_COL, PIECE_ROW))
-        ));
-    }
-
-    public Player(boolean isBot, Set<Piece> pieces) {
+    public Player(Board board, boolean isBot) {
+        this.board = board;
         this.isBot = isBot;
-        this.pieces = pieces;
+        this.color = Board.colorOf(isBot);
     }
 
     /**
@@ -64,15 +51,32 @@ public class Player implements Cloneable {
         return this.isBot;
     }
 
+    /**
+     * Get the board this player is a view of
+     * @return the board
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
+    /**
+     * Get the color index of this player on the board
+     * @return the color
+     */
+    public int getColor() {
+        return this.color;
+    }
+
     /**
      * Get alive pawns of the player
      * @return the pawns
      */
     protected Collection<Pawn> getPawns() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof Pawn)
-                .map(p -> (Pawn) p)
-                .toList();
+        List<Pawn> pawns = new ArrayList<>();
+        for (long bb = this.board.getPieces(this.color, Board.PAWN); bb != 0; bb &= bb - 1) {
+            pawns.add(new Pawn(this, Board.position(Long.numberOfTrailingZeros(bb))));
+        }
+        return pawns;
     }
 
     /**
@@ -80,18 +84,7 @@ public class Player implements Cloneable {
      * @return the number of pawns
      */
     public int countPawns() {
-        return this.getPawns().size();
-    }
-
-    /**
-     * Get alive bishops of the player
-     * @return the bishops
-     */
-    protected Collection<Bishop> getBishops() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof Bishop)
-                .map(p -> (Bishop) p)
-                .toList();
+        return this.board.count(this.color, Board.PAWN);
     }
 
     /**
@@ -99,18 +92,7 @@ public class Player implements Cloneable {
      * @return the number of bishops
      */
     public int countBishops() {
-        return this.getBishops().size();
-    }
-
-    /**
-     * Get alive knights of the player
-     * @return the knights
-     */
-    protected Collection<Knight> getKnights() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof Knight)
-                .map(p -> (Knight) p)
-                .toList();
+        return this.board.count(this.color, Board.BISHOP);
     }
 
     /**
@@ -118,18 +100,7 @@ public class Player implements Cloneable {
      * @return the number of knights
      */
     public int countKnights() {
-        return this.getKnights().size();
-    }
-
-    /**
-     * Get alive rooks of the player
-     * @return the rooks
-     */
-    protected Collection<Rook> getRooks() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof Rook)
-                .map(p -> (Rook) p)
-                .toList();
+        return this.board.count(this.color, Board.KNIGHT);
     }
 
     /**
@@ -137,18 +108,7 @@ public class Player implements Cloneable {
      * @return the number of rooks
      */
     public int countRooks() {
-        return this.getRooks().size();
-    }
-
-    /**
-     * Get the queen of the player
-     * @return the queen
-     */
-    protected Collection<Queen> getQueens() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof Queen)
-                .map(p -> (Queen) p)
-                .toList();
+        return this.board.count(this.color, Board.ROOK);
     }
 
     /**
@@ -156,27 +116,23 @@ public class Player implements Cloneable {
      * @return the number of queens
      */
     public int countQueens() {
-        return this.getQueens().size();
+        return this.board.count(this.color, Board.QUEEN);
     }
 
     /**
-     * Get the king of the player
-     * @return the king
+     * Return the number of kings alive
+     * @return the number of kings
      */
-    protected Optional<King> getKing() {
-        return this.pieces.stream()
-                .filter(p -> p instanceof King)
-                .map(p -> (King) p)
-                .findAny();
+    public int countKings() {
+        return this.board.count(this.color, Board.KING) > 0 ? 1 : 0;
     }
 
-
     /**
-     * Return the number of kings alive
-     * @return the number of kings
+     * Return the number of all pieces alive
+     * @return the number of pieces
      */
-    public int countKings() {
-        return this.getKing().isPresent() ? 1 : 0;
+    public int countPieces() {
+        return this.board.count(this.color);
     }
 
     /**
@@ -184,21 +140,18 @@ public class Player implements Cloneable {
      * @return the number
      */
     public int countDoubledPawns() {
-        List<Position> positions = this.getPawns().stream()
-                .map(Piece::getPosition)
-                .sorted(Comparator.comparing(Position::x))
-                .toList();
-
-        int count = 0;
-        int prevX = -1;
-        for (Position position : positions) {
-            if (position.x() == prevX) {
-                count += 1;
-            }
-            prevX = position.x();
-        }
+        return countDoubledPawns(this.board, this.color);
+    }
 
-        return count;
+    /**
+     * Return the number of doubled pawns of the given color, without creating the player
+     * @param board the board
+     * @param color the color
+     * @return the number
+     */
+    public static int countDoubledPawns(Board board, int color) {
+        long pawns = board.getPieces(color, Board.PAWN);
+        return Long.bitCount(pawns) - Integer.bitCount(filesOf(pawns));
     }
 
     /**
@@ -207,32 +160,43 @@ public class Player implements Cloneable {
      * @return the number
      */
     public int countBlockedPawns(Player opponent) {
-        return this.getPawns().stream()
-                .map(p -> new Position(p.getX(), this.isBot() ? p.getY()+1 : p.getY()-1))
-                .filter(p -> this.isOccupied(p) || opponent.isOccupied(p))
-                .toArray().length;
+        return countBlockedPawns(this.board, this.color);
+    }
+
+    /**
+     * Return the number of blocked pawns of the given color, without creating the player
+     * @param board the board
+     * @param color the color
+     * @return the number
+     */
+    public static int countBlockedPawns(Board board, int color) {
+        long pawns = board.getPieces(color, Board.PAWN);
+        long squaresInFront = color == Board.BOT ? pawns << Board.BOARD_SIZE : pawns >>> Board.BOARD_SIZE;
+        return Long.bitCount(squaresInFront & board.getOccupied());
     }
 
     /**
-     * Return the number of isolated pawns
+     * Return the number of isolated pawns, which have no other pawn of the player on the same or the adjacent columns
      * @return the number
      */
     public int countIsolatedPawns() {
-        Collection<Pawn> alivePawns = this.getPawns();
+        return countIsolatedPawns(this.board, this.color);
+    }
 
-        int count = 0;
-        for (Pawn p1 : alivePawns) {
-            boolean foundNeighbor = false;
-            for (Pawn p2 : alivePawns) {
-                if (p1 == p2) continue;
-
-                if (Math.abs(p1.getX() - p2.getX()) <= 1) {
-                    foundNeighbor = true;
-                    break;
-                }
-            }
+    /**
+     * Return the number of isolated pawns of the given color, without creating the player
+     * @param board the board
+     * @param color the color
+     * @return the number
+     */
+    public static int countIsolatedPawns(Board board, int color) {
+        long pawns = board.getPieces(color, Board.PAWN);
+        int files = filesOf(pawns);
+        int filesWithoutNeighbors = files & ~((files << 1) | (files >>> 1));
 
-            if (!foundNeighbor) {
+        int count = 0;
+        for (int bits = filesWithoutNeighbors; bits != 0; bits &= bits - 1) {
+            if (Long.bitCount(pawns & FILE_MASKS[Integer.numberOfTrailingZeros(bits)]) == 1) {
                 count += 1;
             }
         }
@@ -240,6 +204,20 @@ public class Player implements Cloneable {
         return count;
     }
 
+    /**
+     * Get the columns that have any of the given pieces
+     * @param pieces the bitboard of the pieces
+     * @return the bit mask of the columns, where bit x is set if column x has a piece
+     */
+    protected static int filesOf(long pieces) {
+        // fold the rows onto the first one
+        long files = pieces;
+        files |= files >>> 32;
+        files |= files >>> 16;
+        files |= files >>> 8;
+        return (int) (files & 0xFF);
+    }
+
     /**
      * Return the pawns of this player that are promotable
      * @return the pawns
@@ -257,26 +235,47 @@ public class Player implements Cloneable {
      * @param position the position of the piece
      */
     public void addPiece(char icon, Position position) {
-        if (this.isOccupied(position)) {
+        if (!Position.isWithinBound(position)) {
+            throw new IllegalArgumentException(String.format("The position at (%s) is out of the board", position));
+        } else if (this.isOccupied(position)) {
             throw new IllegalArgumentException(String.format("The position at (%s) is already occupied", position));
         }
 
-        switch (icon) {
-            case Bishop.BLACK_ICON, Bishop.WHITE_ICON -> this.pieces.add(new Bishop(this, position));
-            case King.BLACK_ICON, King.WHITE_ICON -> this.pieces.add(new King(this, position));
-            case Knight.BLACK_ICON, Knight.WHITE_ICON -> this.pieces.add(new Knight(this, position));
-            case Pawn.BLACK_ICON, Pawn.WHITE_ICON -> this.pieces.add(new Pawn(this, position));
-            case Queen.BLACK_ICON, Queen.WHITE_ICON -> this.pieces.add(new Queen(this, position));
-            case Rook.BLACK_ICON, Rook.WHITE_ICON -> this.pieces.add(new Rook(this, position));
-            default -> throw new IllegalArgumentException(String.format("The icon %s is invalid", icon));
-        }
+        this.board.addPiece(this.color, Board.typeOf(icon), Board.square(position));
     }
 
     /**
      * Return all alive pieces of the player
      */
     public Collection<Piece> allPieces() {
-        return this.pieces;
+        List<Piece> pieces = new ArrayList<>(this.countPieces());
+        for (long bb = this.board.getOccupancy(this.color); bb != 0; bb &= bb - 1) {
+            int square = Long.numberOfTrailingZeros(bb);
+            pieces.add(this.createPiece(this.board.typeAt(this.color, square), Board.position(square)));
+        }
+        return pieces;
+    }
+
+    /**
+     * Move the piece at the given position to the new position
+     * @param oldPosition the position of the piece
+     * @param newPosition the position to move to
+     * @throws IllegalArgumentException if there is no piece at the position, or the new position is out of the board
+     * or occupied by a piece of the player
+     */
+    public void movePiece(Position oldPosition, Position newPosition) {
+        if (!this.isOccupied(oldPosition)) {
+            throw new IllegalArgumentException(String.format("A piece at %s not found.", oldPosition));
+        } else if (!Position.isWithinBound(newPosition)) {
+            throw new IllegalArgumentException(String.format("The position at (%s) is out of the board", newPosition));
+        } else if (this.isOccupied(newPosition)) {
+            throw new IllegalArgumentException(String.format("The position at (%s) is already occupied", newPosition));
+        }
+
+        int from = Board.square(oldPosition);
+        int type = this.board.typeAt(this.color, from);
+
+        this.board.movePiece(this.color, type, from, Board.square(newPosition));
     }
 
     /**
@@ -284,7 +283,9 @@ public class Player implements Cloneable {
      * @param position the position
      */
     public void killPieceAt(Position position) {
-        this.findPieceAt(position).ifPresent(this.pieces::remove);
+        if (Position.isWithinBound(position)) {
+            this.board.removePieceAt(this.color, Board.square(position));
+        }
     }
 
     /**
@@ -293,23 +294,82 @@ public class Player implements Cloneable {
      * @return the piece
      */
     public Optional<Piece> findPieceAt(Position position) {
-        return this.pieces.stream()
-                .filter(piece -> piece.getPosition().equals(position))
-                .findAny();
+        if (!this.isOccupied(position)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(this.createPiece(this.board.typeAt(this.color, Board.square(position)), position));
     }
 
     /**
      * Check if the given x and y are occupied by any piece of the player
      */
     public boolean isOccupied(int x, int y) {
-        return this.isOccupied(new Position(x, y));
+        return Position.isWithinBound(x, y) && this.board.isOccupied(this.color, Board.square(x, y));
     }
 
     /**
      * Check if the given position is occupied by any piece of the player
      */
     public boolean isOccupied(Position position) {
-        return this.findPieceAt(position).isPresent();
+        return this.isOccupied(position.x(), position.y());
+    }
+
+    /**
+     * Return the number of actions of the player, counted from the attack bitboards of the pieces without creating
+     * the actions. It is the same as the size of actions.
+     * @param opponent the opponent of the player
+     * @return the number of actions
+     */
+    public int countMobility(Player opponent) {
+        return countMobility(this.board, this.color);
+    }
+
+    /**
+     * Return the number of actions of the given color, without creating the player or the actions
+     * @param board the board
+     * @param color the color
+     * @return the number of actions
+     */
+    public static int countMobility(Board board, int color) {
+        long own = board.getOccupancy(color);
+        long occupied = board.getOccupied();
+        long notOwn = ~own;
+
+        int count = 0;
+        for (long bb = board.getPieces(color, Board.KNIGHT); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.knight(Long.numberOfTrailingZeros(bb)) & notOwn);
+        }
+        for (long bb = board.getPieces(color, Board.BISHOP); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.bishop(Long.numberOfTrailingZeros(bb), occupied) & notOwn);
+        }
+        for (long bb = board.getPieces(color, Board.ROOK); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.rook(Long.numberOfTrailingZeros(bb), occupied) & notOwn);
+        }
+        for (long bb = board.getPieces(color, Board.QUEEN); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.queen(Long.numberOfTrailingZeros(bb), occupied) & notOwn);
+        }
+        for (long bb = board.getPieces(color, Board.KING); bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.king(Long.numberOfTrailingZeros(bb)) & notOwn);
+        }
+
+        long pawns = board.getPieces(color, Board.PAWN);
+        long empty = ~occupied;
+        long opponentPieces = board.getOccupancy(1 - color);
+        long singlePushes, doublePushes;
+        if (color == Board.BOT) {
+            singlePushes = (pawns << Board.BOARD_SIZE) & empty;
+            doublePushes = ((singlePushes & BOT_SINGLE_PUSH_ROW) << Board.BOARD_SIZE) & empty;
+        } else {
+            singlePushes = (pawns >>> Board.BOARD_SIZE) & empty;
+            doublePushes = ((singlePushes & HUMAN_SINGLE_PUSH_ROW) >>> Board.BOARD_SIZE) & empty;
+        }
+        count += Long.bitCount(singlePushes) + Long.bitCount(doublePushes);
+        for (long bb = pawns; bb != 0; bb &= bb - 1) {
+            count += Long.bitCount(Attacks.pawn(color, Long.numberOfTrailingZeros(bb)) & opponentPieces);
+        }
+
+        return count;
     }
 
     /**
@@ -317,9 +377,9 @@ public class Player implements Cloneable {
      * @return the actions
      */
     public Collection<Action> actions(Player opponent) {
-        List<Action> actions = new LinkedList<>();
+        List<Action> actions = new ArrayList<>();
 
-        for (Piece piece : this.pieces) {
+        for (Piece piece : this.allPieces()) {
             for (Position movement : piece.movements(opponent)) {
                 actions.add(new Action(piece, movement));
             }
@@ -328,14 +388,21 @@ public class Player implements Cloneable {
         return actions;
     }
 
-    @Override
-    public Player clone() {
-        try {
-            Player newPlayer = (Player) super.clone();
-            this.pieces = this.pieces.stream().map(p -> p.clone(newPlayer)).collect(Collectors.toSet());
-            return newPlayer;
-        } catch (CloneNotSupportedException e) {
-            throw logger.throwing(new RuntimeException(e));
-        }
+    /**
+     * Create the piece of the given type of this player
+     * @param type the type of the piece
+     * @param position the position of the piece
+     * @return the piece
+     */
+    protected Piece createPiece(int type, Position position) {
+        return switch (type) {
+            case Board.PAWN -> new Pawn(this, position);
+            case Board.KNIGHT -> new Knight(this, position);
+            case Board.BISHOP -> new Bishop(this, position);
+            case Board.ROOK -> new Rook(this, position);
+            case Board.QUEEN -> new Queen(this, position);
+            case Board.KING -> new King(this, position);
+            default -> throw new IllegalArgumentException(String.format("The type %s is invalid", type));
+        };
     }
 }
@@ -0,0 +1,110 @@
+package game;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+/**
+ * The limits of one search: a deadline, a budget of nodes and a flag to abort it from another thread.
+ * The bot polls it while searching and stops as soon as any of them is reached.
+ */
+public class SearchControl {
+
+    /**
+     * The number of nodes visited between each check of the clock. It must be a power of two.
+     */
+    protected static final int TIME_CHECK_INTERVAL = 1024;
+
+    protected static final long NO_LIMIT = Long.MAX_VALUE;
+
+    /**
+     * The deadline of the search in System.nanoTime
+     */
+    protected final long deadline;
+
+    protected final boolean hasDeadline;
+
+    protected final long nodeLimit;
+
+    protected volatile boolean isAborted;
+
+    protected long numNodesVisited;
+
+    /**
+     * Create a control with the given limits
+     * @param timeLimit the time the search can take, or null for no limit
+     * @param nodeLimit the number of nodes the search can visit, or null for no limit
+     */
+    public SearchControl(@Nullable Duration timeLimit, @Nullable Long nodeLimit) {
+        if (nodeLimit != null && nodeLimit < 1) {
+            throw new IllegalArgumentException(String.format("The node limit must be positive. Given: %s", nodeLimit));
+        }
+
+        this.hasDeadline = timeLimit != null;
+        this.deadline = this.hasDeadline ? System.nanoTime() + timeLimit.toNanos() : 0L;
+        this.nodeLimit = nodeLimit == null ? NO_LIMIT : nodeLimit;
+        this.isAborted = false;
+        this.numNodesVisited = 0;
+    }
+
+    /**
+     * Create a control without any limit
+     * @return the control
+     */
+    public static SearchControl unlimited() {
+        return new SearchControl(null, null);
+    }
+
+    /**
+     * Abort the search. It can be called from any thread.
+     */
+    public void abort() {
+        this.isAborted = true;
+    }
+
+    /**
+     * Check if the search was aborted
+     * @return true if it was, false otherwise
+     */
+    public boolean isAborted() {
+        return this.isAborted;
+    }
+
+    /**
+     * Get the number of nodes visited so far
+     * @return the number of nodes
+     */
+    public long getNumNodesVisited() {
+        return this.numNodesVisited;
+    }
+
+    /**
+     * Count a visited node and check if a limit was reached. The node budget is checked at every node so the same
+     * budget always searches the same tree, while the clock is read once every TIME_CHECK_INTERVAL nodes.
+     * @return true if the search should stop, false otherwise
+     */
+    protected boolean visit() {
+        long numNodes = ++this.numNodesVisited;
+        if (numNodes >= this.nodeLimit) {
+            return true;
+        }
+
+        return (numNodes & (TIME_CHECK_INTERVAL - 1)) == 0 && this.isPastDeadline();
+    }
+
+    /**
+     * Check if the deadline passed
+     * @return true if it did, false otherwise
+     */
+    protected boolean isPastDeadline() {
+        return this.hasDeadline && System.nanoTime() - this.deadline > 0;
+    }
+
+    /**
+     * Check if the node budget was used up
+     * @return true if it was, false otherwise
+     */
+    protected boolean isOverNodeLimit() {
+        return this.numNodesVisited >= this.nodeLimit;
+    }
+}
@@ -0,0 +1,180 @@
+package game;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The search state kept between the decisions of one game: its own transposition table, so the next search starts
+ * from the results of the previous ones, and the principal variation of the last decision, so the next search starts
+ * with the move it expected if the human played the expected reply.
+ * While the human thinks, the session can ponder, which is to search the board of the expected reply in the
+ * background. Its results go into the table of the session, so they are kept even when the human plays another move.
+ */
+public class SearchSession {
+
+    protected final TranspositionTable transpositionTable;
+
+    /**
+     * The key of the board the last principal variation expected after the action taken and the reply
+     */
+    protected volatile long expectedKey;
+
+    /**
+     * The move the last principal variation expected on the board of the expected key, or Move.NO_MOVE
+     */
+    protected volatile int expectedMove;
+
+    /**
+     * The time the session was last used in System.nanoTime
+     */
+    protected volatile long lastUsedTime;
+
+    /**
+     * The board the last principal variation expected after the action taken and the reply, or null
+     */
+    protected Board expectedBoard;
+
+    /**
+     * The search of the board of the expected reply, or null if the session is not pondering
+     */
+    protected Ponder ponder;
+
+    /**
+     * A search of the board of the expected reply
+     * @param key the key of the board
+     * @param bot the bot searching
+     * @param control the limits of the search
+     * @param search the decision the search ends with
+     */
+    protected record Ponder(long key, Bot bot, SearchControl control, CompletableFuture<DecisionRecord> search) {}
+
+    public SearchSession(long hashSizeInBytes) {
+        this.transpositionTable = new TranspositionTable(hashSizeInBytes);
+        this.expectedMove = Move.NO_MOVE;
+        this.lastUsedTime = System.nanoTime();
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    /**
+     * Get the memory the session takes
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return this.transpositionTable.sizeInBytes();
+    }
+
+    public long getLastUsedTime() {
+        return this.lastUsedTime;
+    }
+
+    /**
+     * Mark the session as used now
+     */
+    public void touch() {
+        this.lastUsedTime = System.nanoTime();
+    }
+
+    /**
+     * Get the move the last principal variation expected on the given board
+     * @param board the board, where it is the bot turn
+     * @return the move, or Move.NO_MOVE if the game did not follow the principal variation
+     */
+    public int expectedMove(Board board) {
+        return board.getHash() == this.expectedKey ? this.expectedMove : Move.NO_MOVE;
+    }
+
+    /**
+     * Remember the principal variation of a decision
+     * @param board the board the decision was made on, where it is the bot turn
+     * @param principalVariation the moves of the principal variation, starting with the action taken
+     */
+    public synchronized void update(Board board, int[] principalVariation) {
+        this.expectedMove = Move.NO_MOVE;
+        this.expectedBoard = null;
+        if (principalVariation.length < 2) {
+            return;
+        }
+
+        Board expectedBoard = board.clone();
+        expectedBoard.setBotTurn(true);
+        expectedBoard.makeMove(principalVariation[0]);
+        expectedBoard.makeMove(principalVariation[1]);
+        if (new Game().isTerminal(expectedBoard)) {
+            return;
+        }
+
+        this.expectedBoard = expectedBoard;
+        this.expectedKey = expectedBoard.getHash();
+        this.expectedMove = principalVariation.length > 2 ? principalVariation[2] : Move.NO_MOVE;
+    }
+
+    /**
+     * Start searching the board of the expected reply in the background on one thread, replacing the current
+     * ponder search
+     * @param intelligenceLevel the intelligence level of the search
+     * @param budget the time the search can take
+     * @param searchThreads the threads to ponder on
+     * @return true if it started, false if the last principal variation did not expect a reply or no thread is free
+     */
+    public synchronized boolean startPondering(int intelligenceLevel, Duration budget, SearchThreads searchThreads) {
+        this.stopPondering();
+        if (this.expectedBoard == null || searchThreads.reserve(1) == 0) {
+            return false;
+        }
+
+        Bot bot = new Bot(intelligenceLevel, this.transpositionTable, 1, searchThreads);
+        SearchControl control = new SearchControl(budget, null);
+        State state = new State(this.expectedBoard.clone());
+        int expectedMove = this.expectedMove;
+
+        CompletableFuture<DecisionRecord> search = searchThreads.runPonder(() -> bot.decide(state, control, expectedMove));
+        this.ponder = new Ponder(this.expectedKey, bot, control, search);
+        return true;
+    }
+
+    /**
+     * Stop the ponder search without waiting for it
+     */
+    public synchronized void stopPondering() {
+        if (this.ponder != null) {
+            this.ponder.control().abort();
+            this.ponder = null;
+        }
+    }
+
+    /**
+     * End the ponder search, and take its decision if it searched the given board as deep as the given intelligence
+     * level. Otherwise the search is aborted, and the next search of the board starts from the entries it stored.
+     * @param board the board to decide on, where it is the bot turn
+     * @param intelligenceLevel the intelligence level of the decision
+     * @return the decision of the ponder search, or empty if it cannot be used
+     */
+    public Optional<DecisionRecord> takePonderDecision(Board board, int intelligenceLevel) {
+        Ponder ponder;
+        synchronized (this) {
+            ponder = this.ponder;
+            this.ponder = null;
+        }
+        if (ponder == null) {
+            return Optional.empty();
+        }
+
+        boolean isHit = ponder.key() == board.getHash();
+        if (!isHit || !ponder.search().isDone()) {
+            ponder.control().abort();
+        }
+
+        // wait for an aborted search to return, so the search of the board does not share the thread budget with it
+        DecisionRecord decisionRecord = ponder.search().exceptionally(throwable -> null).join();
+        if (!isHit || decisionRecord == null || decisionRecord.depthReached() < intelligenceLevel) {
+            return Optional.empty();
+        }
+
+        this.update(board, ponder.bot().getPrincipalVariation());
+        return Optional.of(decisionRecord);
+    }
+}
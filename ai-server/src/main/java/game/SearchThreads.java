@@ -0,0 +1,187 @@
+package game;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The number of threads the searches can use together, and the threads the helper and ponder searches run on.
+ * A main search always counts as one busy thread, while a helper or ponder search only runs on a thread that is
+ * free, so a search with many threads or a game that ponders cannot take the threads of the main searches.
+ */
+public class SearchThreads {
+
+    /**
+     * The time an idle thread of the pools is kept
+     */
+    protected static final long KEEP_ALIVE_SECONDS = 60;
+
+    protected final int maxThreads;
+
+    /**
+     * The number of threads the main, helper and ponder searches take together
+     */
+    protected final AtomicInteger numBusyThreads;
+
+    /**
+     * The number of searches running on each thread, so a search started inside another one on the same thread,
+     * such as a decision run by the executor or a ponder search, does not count the thread twice
+     */
+    protected final ThreadLocal<int[]> numSearchesOnThread;
+
+    protected final ThreadPoolExecutor helperPool;
+
+    protected final ThreadPoolExecutor ponderPool;
+
+    public SearchThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException(String.format("The number of threads must be positive. Given: %s", maxThreads));
+        }
+
+        this.maxThreads = maxThreads;
+        this.numBusyThreads = new AtomicInteger();
+        this.numSearchesOnThread = ThreadLocal.withInitial(() -> new int[1]);
+        this.helperPool = pool(maxThreads, "search-helper");
+        this.ponderPool = pool(maxThreads, "ponder");
+    }
+
+    /**
+     * Create a pool of up to the given number of daemon threads, so an idle pool does not keep the process alive
+     * @param maxThreads the number of threads
+     * @param name the name of the threads
+     * @return the pool
+     */
+    protected static ThreadPoolExecutor pool(int maxThreads, String name) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Get the threads of the searches that are not run by the server, such as those of the command line and the
+     * benchmarks, which can use one thread per processor
+     * @return the threads
+     */
+    public static SearchThreads getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public int getMaxThreads() {
+        return this.maxThreads;
+    }
+
+    public int getNumBusyThreads() {
+        return this.numBusyThreads.get();
+    }
+
+    public ThreadPoolExecutor getHelperPool() {
+        return this.helperPool;
+    }
+
+    public ThreadPoolExecutor getPonderPool() {
+        return this.ponderPool;
+    }
+
+    /**
+     * Count the calling thread as busy with a main search until it ends, unless it is already counted. It is counted
+     * even if every thread is busy, since the number of main searches is limited by whoever runs them.
+     */
+    public void startMainSearch() {
+        if (this.numSearchesOnThread.get()[0]++ == 0) {
+            this.numBusyThreads.incrementAndGet();
+        }
+    }
+
+    /**
+     * End a main search started by startMainSearch, freeing the calling thread if no other search is running on it
+     */
+    public void endMainSearch() {
+        if (--this.numSearchesOnThread.get()[0] == 0) {
+            this.numBusyThreads.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserve as many of the given number of threads as are free for helper, ponder or batch searches. Each thread
+     * reserved must either run one search with runHelper or runPonder, which frees it when the search ends, or be
+     * freed with release.
+     * @param numThreads the number of threads wanted
+     * @return the number of threads reserved, from 0 to the number wanted
+     */
+    public int reserve(int numThreads) {
+        while (true) {
+            int numBusy = this.numBusyThreads.get();
+            int numReserved = Math.max(0, Math.min(numThreads, this.maxThreads - numBusy));
+            if (numReserved == 0 || this.numBusyThreads.compareAndSet(numBusy, numBusy + numReserved)) {
+                return numReserved;
+            }
+        }
+    }
+
+    /**
+     * Free the given number of threads reserved by reserve that do not run their searches with runHelper or runPonder
+     * @param numThreads the number of threads
+     */
+    public void release(int numThreads) {
+        this.numBusyThreads.addAndGet(-numThreads);
+    }
+
+    /**
+     * Run the given search on the calling thread, which must be a thread reserved by reserve, such as a thread of a
+     * batch. The thread is not counted again by the main searches started inside it, and stays reserved when it ends.
+     * @param search the search
+     * @param <T> the type of the result of the search
+     * @return the result of the search
+     */
+    public <T> T runOnReservedThread(Supplier<T> search) {
+        int[] numSearches = this.numSearchesOnThread.get();
+        numSearches[0]++;
+        try {
+            return search.get();
+        } finally {
+            numSearches[0]--;
+        }
+    }
+
+    /**
+     * Run the given helper search on a thread reserved for it
+     * @param search the search
+     * @param <T> the type of the result of the search
+     * @return the result of the search when it ends
+     */
+    public <T> CompletableFuture<T> runHelper(Supplier<T> search) {
+        return this.run(search, this.helperPool);
+    }
+
+    /**
+     * Run the given ponder search on a thread reserved for it
+     * @param search the search
+     * @param <T> the type of the result of the search
+     * @return the result of the search when it ends
+     */
+    public <T> CompletableFuture<T> runPonder(Supplier<T> search) {
+        return this.run(search, this.ponderPool);
+    }
+
+    protected <T> CompletableFuture<T> run(Supplier<T> search, ThreadPoolExecutor pool) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.runOnReservedThread(search);
+            } finally {
+                this.release(1);
+            }
+        }, pool);
+    }
+
+    private static class DefaultHolder {
+        private static final SearchThreads INSTANCE = new SearchThreads(Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -5,14 +5,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
-import piece.*;
-import util.Position;
 
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 /**
  * The state of the chess game
@@ -21,26 +16,40 @@ public class State implements Cloneable {
 
     private static final Logger logger = LogManager.getLogger();
 
-    protected static final int BOARD_SIZE = 8;
+    protected static final int BOARD_SIZE = Board.BOARD_SIZE;
+
+    protected static final char EMPTY_ICON = '□';
+
+    protected Board board;
 
     protected Player botPlayer;
 
     protected Player humanPlayer;
 
-    protected boolean isBotTurn;
-
     protected boolean isTerminal;
 
     protected Player winner;
 
     public State() {
-        this.botPlayer = new Player(true);
-        this.humanPlayer = new Player(false);
-        this.isBotTurn = true;
+        this(Board.initial());
+    }
+
+    public State(Board board) {
+        this.board = board;
+        this.botPlayer = new Player(board, true);
+        this.humanPlayer = new Player(board, false);
         this.isTerminal = false;
         this.winner = null;
     }
 
+    /**
+     * Get the board of the state
+     * @return the board
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
     /**
      * Get the bot player
      * @return the player
@@ -62,7 +71,7 @@ public class State implements Cloneable {
      * @return true if it is, false otherwise
      */
     public boolean isBotTurn() {
-        return this.isBotTurn;
+        return this.board.isBotTurn();
     }
 
     /**
@@ -77,7 +86,7 @@ public class State implements Cloneable {
      * Move on to the next player's turn
      */
     public void moveToNextPlayerTurn() {
-        this.isBotTurn = !this.isBotTurn();
+        this.board.setBotTurn(!this.isBotTurn());
     }
 
     /**
@@ -109,12 +118,43 @@ public class State implements Cloneable {
         return this.winner == null ? Optional.empty() : Optional.of(this.winner);
     }
 
+    /**
+     * Get the Zobrist key of the state, which identifies the placement of the pieces and whose turn it is
+     * @return the key
+     */
+    public long getZobristKey() {
+        return this.board.getHash();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof State other)) {
+            return false;
+        }
+
+        return this.isTerminal == other.isTerminal && this.board.equals(other.board)
+                && Objects.equals(this.winner == null ? null : this.winner.isBot(),
+                        other.winner == null ? null : other.winner.isBot());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.getZobristKey());
+    }
+
     @Override
     public State clone() {
         try {
             State clone = (State) super.clone();
-            this.botPlayer = this.botPlayer.clone();
-            this.humanPlayer = this.humanPlayer.clone();
+            clone.board = this.board.clone();
+            clone.botPlayer = new Player(clone.board, true);
+            clone.humanPlayer = new Player(clone.board, false);
+            if (this.winner != null) {
+                clone.winner = this.winner.isBot() ? clone.botPlayer : clone.humanPlayer;
+            }
             return clone;
         } catch (CloneNotSupportedException e) {
             throw logger.throwing(new RuntimeException(e));
@@ -123,18 +163,23 @@ public class State implements Cloneable {
 
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-        char[][] board = new char[BOARD_SIZE][BOARD_SIZE];
-        for (char[] row : board) {
-            Arrays.fill(row, '□');
-        }
-
-        Stream.of(this.botPlayer.allPieces(), this.humanPlayer.allPieces())
-                .flatMap(Collection::stream)
-                .forEach(piece -> board[piece.getY()][piece.getX()] = piece.getIcon());
+        StringBuilder builder = new StringBuilder(Board.NUM_SQUARES + BOARD_SIZE);
 
         for (int i = 0; i < BOARD_SIZE; i++) {
-            builder.append(board[i]).append('\n');
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                int square = Board.square(j, i);
+                int botType = this.board.typeAt(Board.BOT, square);
+                int humanType = this.board.typeAt(Board.HUMAN, square);
+
+                if (botType != Board.EMPTY) {
+                    builder.append(Board.iconOf(Board.BOT, botType));
+                } else if (humanType != Board.EMPTY) {
+                    builder.append(Board.iconOf(Board.HUMAN, humanType));
+                } else {
+                    builder.append(EMPTY_ICON);
+                }
+            }
+            builder.append('\n');
         }
 
         return builder.toString();
@@ -148,6 +193,7 @@ public class State implements Cloneable {
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode json = mapper.createObjectNode();
         json.put("board", this.toString());
+        json.put("fen", BoardCodec.toFen(this.board));
 
         if (this.isTerminal()) {
             String winner = null;
@@ -162,36 +208,14 @@ public class State implements Cloneable {
 
     /**
      * Parse the given board into the state
-     * @param board the board
-     * @param isBotTurn whether it is a bot turn or not
+     * @param board the board in text, FEN or base64 of the binary format of BoardCodec
+     * @param isBotTurn whether it is a bot turn or not, which replaces the side to move of a FEN
      * @return the state
+     * @throws IllegalArgumentException if the board is invalid
      */
     public static State parse(String board, boolean isBotTurn) {
-        Player botPlayer = new Player(true, new HashSet<>());
-        Player humanPlayer = new Player(false, new HashSet<>());
-
-        String[] lines = board.split("\n");
-
-        for (int i = 0; i < lines.length; i++) {
-            char[] chars = lines[i].toCharArray();
-            for (int j = 0; j < lines[i].length(); j++) {
-                char icon = chars[j];
-                Position position = new Position(j, i);
-
-                switch (icon) {
-                    case Bishop.BLACK_ICON, King.BLACK_ICON, Knight.BLACK_ICON, Pawn.BLACK_ICON, Queen.BLACK_ICON,
-                            Rook.BLACK_ICON -> botPlayer.addPiece(icon, position);
-                    case Bishop.WHITE_ICON, King.WHITE_ICON, Knight.WHITE_ICON, Pawn.WHITE_ICON, Queen.WHITE_ICON,
-                            Rook.WHITE_ICON -> humanPlayer.addPiece(icon, position);
-                }
-            }
-        }
-
-        State state = new State();
-        state.botPlayer = botPlayer;
-        state.humanPlayer = humanPlayer;
-        state.isBotTurn = isBotTurn;
-
-        return state;
+        Board parsedBoard = BoardCodec.decode(board);
+        parsedBoard.setBotTurn(isBotTurn);
+        return new State(parsedBoard);
     }
 }
@@ -0,0 +1,478 @@
+package game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only endgame tablebases memory-mapped from a directory, one file for each material without pawns.
+ * A table holds one signed byte for every placement of the pieces and side to move: the number of plies until the
+ * side to move captures the king when it is positive, until it loses its king when it is negative, and 0 for a draw.
+ * The pieces of a material are ordered by side and then king, queen, rook, bishop and knight, and the index of a
+ * position is the side to move followed by the square of each piece in that order, six bits each.
+ * Lookups only use absolute reads of the buffers, so the tablebases can be shared between threads.
+ */
+public class Tablebase {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * The system property that sets the directory of the tablebases shared by every search in this process
+     */
+    public static final String PATH_PROPERTY = "engine.tablebases";
+
+    /**
+     * The ASCII bytes of CNCTB001
+     */
+    protected static final long MAGIC = 0x434E435442303031L;
+
+    protected static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    protected static final String FILE_EXTENSION = ".tb";
+
+    /**
+     * The most pieces of a material with a table, including both kings
+     */
+    public static final int MAX_PIECES = 4;
+
+    /**
+     * The value probe returns for a board without a table
+     */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /**
+     * The order of the piece types within a side
+     */
+    protected static final int[] PIECE_ORDER = {Board.KING, Board.QUEEN, Board.ROOK, Board.BISHOP, Board.KNIGHT};
+
+    protected static final String PIECE_LETTERS = "KQRBN";
+
+    /**
+     * The number of keys of a side, which counts each of the queens, rooks, bishops and knights up to two
+     */
+    protected static final int NUM_SIDE_KEYS = 81;
+
+    protected static final Tablebase EMPTY = new Tablebase();
+
+    /**
+     * The values of each table indexed by the key of its first side * NUM_SIDE_KEYS + the key of its second side,
+     * or null where there is no table
+     */
+    protected final ByteBuffer[] tables;
+
+    protected int numTables;
+
+    protected Tablebase() {
+        this.tables = new ByteBuffer[NUM_SIDE_KEYS * NUM_SIDE_KEYS];
+        this.numTables = 0;
+    }
+
+    /**
+     * The pieces of a table, each side starting with its king
+     * @param first the types of the pieces of the first side, which is the stronger one
+     * @param second the types of the pieces of the second side
+     */
+    public record Material(int[] first, int[] second) {
+
+        /**
+         * Parse a material such as KQvKR
+         * @param name the letters of the pieces of each side separated by v
+         * @return the material, with the pieces of each side in order
+         */
+        public static Material parse(String name) {
+            String[] sides = name.split("v", -1);
+            if (sides.length != 2) {
+                throw new IllegalArgumentException(String.format("The material must have two sides. Given: %s", name));
+            }
+
+            Material material = new Material(parseSide(sides[0], name), parseSide(sides[1], name));
+            if (material.numPieces() > MAX_PIECES) {
+                throw new IllegalArgumentException(String.format("The material can have at most %d pieces. Given: %s",
+                        MAX_PIECES, name));
+            }
+            return material;
+        }
+
+        protected static int[] parseSide(String side, String name) {
+            if (side.isEmpty() || side.charAt(0) != 'K' || side.indexOf('K', 1) >= 0) {
+                throw new IllegalArgumentException(String.format("Each side must have one king first. Given: %s", name));
+            }
+
+            int[] types = new int[side.length()];
+            for (int i = 0; i < side.length(); i++) {
+                int index = PIECE_LETTERS.indexOf(side.charAt(i));
+                if (index < 0) {
+                    throw new IllegalArgumentException(String.format("The material can only have %s. Given: %s",
+                            PIECE_LETTERS, name));
+                }
+                types[i] = PIECE_ORDER[index];
+            }
+            return sortSide(types);
+        }
+
+        protected static int[] sortSide(int[] types) {
+            int[] sorted = new int[types.length];
+            int length = 0;
+            for (int type : PIECE_ORDER) {
+                for (int pieceType : types) {
+                    if (pieceType == type) {
+                        sorted[length++] = type;
+                    }
+                }
+            }
+            return sorted;
+        }
+
+        /**
+         * Get the name of the material, such as KQvKR
+         * @return the name
+         */
+        public String name() {
+            return sideName(this.first) + "v" + sideName(this.second);
+        }
+
+        protected static String sideName(int[] types) {
+            StringBuilder builder = new StringBuilder();
+            for (int type : types) {
+                for (int i = 0; i < PIECE_ORDER.length; i++) {
+                    if (PIECE_ORDER[i] == type) {
+                        builder.append(PIECE_LETTERS.charAt(i));
+                    }
+                }
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Get the number of pieces of both sides
+         * @return the number of pieces
+         */
+        public int numPieces() {
+            return this.first.length + this.second.length;
+        }
+
+        /**
+         * Get the number of positions of the table, which is every placement of the pieces with either side to move
+         * @return the number of positions
+         */
+        public int numPositions() {
+            return 2 << (Move.SQUARE_BITS * this.numPieces());
+        }
+
+        /**
+         * Get the type of the given piece
+         * @param piece the index of the piece, counting the first side then the second
+         * @return the type
+         */
+        public int typeOf(int piece) {
+            return piece < this.first.length ? this.first[piece] : this.second[piece - this.first.length];
+        }
+
+        /**
+         * Get the side of the given piece
+         * @param piece the index of the piece, counting the first side then the second
+         * @return 0 for the first side, 1 for the second
+         */
+        public int sideOf(int piece) {
+            return piece < this.first.length ? 0 : 1;
+        }
+
+        /**
+         * Get the material left after the given piece is captured
+         * @param piece the index of the piece, which is not a king
+         * @return the material, which might not be in canonical order
+         */
+        public Material without(int piece) {
+            if (piece < this.first.length) {
+                return new Material(remove(this.first, piece), this.second);
+            }
+            return new Material(this.first, remove(this.second, piece - this.first.length));
+        }
+
+        protected static int[] remove(int[] types, int index) {
+            int[] removed = new int[types.length - 1];
+            System.arraycopy(types, 0, removed, 0, index);
+            System.arraycopy(types, index + 1, removed, index, removed.length - index);
+            return removed;
+        }
+
+        /**
+         * Get the material with the sides swapped
+         * @return the material
+         */
+        public Material swap() {
+            return new Material(this.second, this.first);
+        }
+
+        /**
+         * Get the material in the order its table is stored in
+         * @return this material if it is in canonical order, or the material with the sides swapped otherwise
+         */
+        public Material canonical() {
+            return this.isCanonical() ? this : this.swap();
+        }
+
+        /**
+         * Check if the first side is the one a table of this material is stored for, which is the side with more
+         * material, or the side with the greater key if both have the same
+         * @return true if it is, false otherwise
+         */
+        public boolean isCanonical() {
+            int firstWeight = weightOf(this.first);
+            int secondWeight = weightOf(this.second);
+            return firstWeight > secondWeight
+                    || firstWeight == secondWeight && sideKey(this.first) >= sideKey(this.second);
+        }
+
+        /**
+         * Check if both sides only have their king
+         * @return true if they do, false otherwise
+         */
+        public boolean isBareKings() {
+            return this.first.length == 1 && this.second.length == 1;
+        }
+
+        protected static int weightOf(int[] types) {
+            int weight = 0;
+            for (int type : types) {
+                weight += type == Board.KING ? 0 : PieceSquareTable.materialOf(type);
+            }
+            return weight;
+        }
+
+        /**
+         * Get the key of the given side
+         * @param types the types of the pieces of the side
+         * @return the key
+         */
+        protected static int sideKey(int[] types) {
+            int[] counts = new int[Board.NUM_PIECE_TYPES];
+            for (int type : types) {
+                counts[type]++;
+            }
+            return sideKey(counts[Board.QUEEN], counts[Board.ROOK], counts[Board.BISHOP], counts[Board.KNIGHT]);
+        }
+
+        protected static int sideKey(int numQueens, int numRooks, int numBishops, int numKnights) {
+            return numQueens + 3 * (numRooks + 3 * (numBishops + 3 * numKnights));
+        }
+
+        /**
+         * Get the index of the material in the tables
+         * @return the index
+         */
+        protected int tableIndex() {
+            return sideKey(this.first) * NUM_SIDE_KEYS + sideKey(this.second);
+        }
+
+        /**
+         * List every material without pawns of two to the given number of pieces, in canonical order
+         * @param maxPieces the most pieces
+         * @return the materials, with fewer pieces first
+         */
+        public static List<Material> all(int maxPieces) {
+            List<int[]> sides = new ArrayList<>();
+            sides.add(new int[] {Board.KING});
+            for (int i = 1; i < PIECE_ORDER.length; i++) {
+                sides.add(new int[] {Board.KING, PIECE_ORDER[i]});
+                for (int j = i; j < PIECE_ORDER.length; j++) {
+                    sides.add(new int[] {Board.KING, PIECE_ORDER[i], PIECE_ORDER[j]});
+                }
+            }
+
+            List<Material> materials = new ArrayList<>();
+            for (int numPieces = 3; numPieces <= maxPieces; numPieces++) {
+                for (int[] first : sides) {
+                    for (int[] second : sides) {
+                        Material material = new Material(first, second);
+                        if (material.numPieces() == numPieces && material.isCanonical()
+                                && materials.stream().noneMatch(other -> other.name().equals(material.name()))) {
+                            materials.add(material);
+                        }
+                    }
+                }
+            }
+            return materials;
+        }
+    }
+
+    /**
+     * Map every table of the given directory
+     * @param directory the directory of the table files
+     * @return the tablebases
+     * @throws IOException if the directory or a table cannot be read
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(path -> path.getFileName().toString().endsWith(FILE_EXTENSION)).toList()) {
+                String fileName = path.getFileName().toString();
+                Material material = Material.parse(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()));
+                tablebase.add(material, map(path, material));
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * Map the values of the table of the given file
+     * @param path the path of the file
+     * @param material the material of the table
+     * @return the values, without the header
+     * @throws IOException if the file cannot be read
+     */
+    protected static ByteBuffer map(Path path, Material material) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+                throw new IOException(String.format("The file %s is not a tablebase", path));
+            }
+
+            int numPositions = buffer.getInt(Long.BYTES);
+            if (numPositions != material.numPositions() || HEADER_SIZE + numPositions != buffer.capacity()) {
+                throw new IOException(String.format("The tablebase %s is truncated", path));
+            }
+
+            return buffer.slice(HEADER_SIZE, numPositions);
+        }
+    }
+
+    /**
+     * Write the values of a table to the file of its material in the given directory
+     * @param directory the directory
+     * @param material the material of the table
+     * @param values the values
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path write(Path directory, Material material, byte[] values) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC);
+        header.putInt(values.length);
+
+        Path path = directory.resolve(material.name() + FILE_EXTENSION);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(new ByteBuffer[] {header.flip(), ByteBuffer.wrap(values)});
+        }
+        return path;
+    }
+
+    /**
+     * Get the tablebases shared by every search in this process. They are read from the directory of the
+     * engine.tablebases property, and are empty if the property is not set or the directory cannot be read.
+     * @return the tablebases
+     */
+    public static Tablebase getShared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    private static class SharedHolder {
+        private static final Tablebase INSTANCE = load(System.getProperty(PATH_PROPERTY));
+
+        private static Tablebase load(String path) {
+            if (path == null || !Files.isDirectory(Path.of(path))) {
+                return EMPTY;
+            }
+
+            try {
+                Tablebase tablebase = open(Path.of(path));
+                logger.info("Loaded {} tablebases from {}", tablebase.size(), path);
+                return tablebase;
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Failed to load the tablebases {}", path, e);
+                return EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Add the table of the given material
+     * @param material the material, in canonical order
+     * @param values the values of the table
+     */
+    protected void add(Material material, ByteBuffer values) {
+        if (!material.isCanonical()) {
+            throw new IllegalArgumentException(String.format("The material %s is not in canonical order",
+                    material.name()));
+        }
+
+        if (this.tables[material.tableIndex()] == null) {
+            this.numTables++;
+        }
+        this.tables[material.tableIndex()] = values;
+    }
+
+    /**
+     * Get the values of the table of the given material
+     * @param material the material, in canonical order
+     * @return the values, or null if there is no table
+     */
+    protected ByteBuffer get(Material material) {
+        return this.tables[material.tableIndex()];
+    }
+
+    /**
+     * Get the number of tables
+     * @return the number of tables
+     */
+    public int size() {
+        return this.numTables;
+    }
+
+    /**
+     * Look up the given board
+     * @param board the board, where both kings are on the board
+     * @return the number of plies until the side to move captures the king if positive, until it loses its king if
+     * negative, 0 for a draw, or NOT_FOUND if there is no table of the material of the board
+     */
+    public int probe(Board board) {
+        if (this.numTables == 0 || Long.bitCount(board.getOccupied()) > MAX_PIECES
+                || board.count(Board.BOT, Board.PAWN) + board.count(Board.HUMAN, Board.PAWN) > 0
+                || board.count(Board.BOT, Board.KING) != 1 || board.count(Board.HUMAN, Board.KING) != 1) {
+            return NOT_FOUND;
+        }
+
+        int botKey = sideKey(board, Board.BOT);
+        int humanKey = sideKey(board, Board.HUMAN);
+
+        int firstColor = Board.BOT;
+        ByteBuffer values = this.tables[botKey * NUM_SIDE_KEYS + humanKey];
+        if (values == null) {
+            firstColor = Board.HUMAN;
+            values = this.tables[humanKey * NUM_SIDE_KEYS + botKey];
+        }
+        if (values == null) {
+            return NOT_FOUND;
+        }
+
+        int index = 0;
+        for (int color : new int[] {firstColor, 1 - firstColor}) {
+            for (int type : PIECE_ORDER) {
+                for (long pieces = board.getPieces(color, type); pieces != 0; pieces &= pieces - 1) {
+                    index = (index << Move.SQUARE_BITS) | Long.numberOfTrailingZeros(pieces);
+                }
+            }
+        }
+
+        int sideToMove = Board.colorOf(board.isBotTurn()) == firstColor ? 0 : 1;
+        index |= sideToMove << (Move.SQUARE_BITS * Long.bitCount(board.getOccupied()));
+
+        return values.get(index);
+    }
+
+    protected static int sideKey(Board board, int color) {
+        return Material.sideKey(board.count(color, Board.QUEEN), board.count(color, Board.ROOK),
+                board.count(color, Board.BISHOP), board.count(color, Board.KNIGHT));
+    }
+}
@@ -0,0 +1,442 @@
+package game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import piece.Attacks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates endgame tablebases by retrograde analysis.
+ * Every position starts unknown. On ply 1 the positions where the side to move can capture the king are won. Then on
+ * each even ply n a position is lost in n if every action leads to a position won for the opponent in at most n - 1,
+ * and on each odd ply n a position is won in n if an action leads to a position lost for the opponent in n - 1.
+ * Captures lead into the table of the smaller material, which is generated first, and a capture that leaves only the
+ * kings is a draw. The positions still unknown when no ply resolves any more are draws.
+ * Each ply only writes values the same ply does not read, so the positions of a ply are resolved in parallel on a
+ * fork-join pool without locking.
+ */
+public class TablebaseGenerator {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    protected static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /**
+     * The number of positions a task resolves without splitting
+     */
+    protected static final int TASK_SIZE = 1 << 14;
+
+    /**
+     * The tables captures lead into, which the generated tables are added to
+     */
+    protected final Tablebase tablebase;
+
+    protected final ForkJoinPool pool;
+
+    public TablebaseGenerator(Tablebase tablebase, ForkJoinPool pool) {
+        this.tablebase = tablebase;
+        this.pool = pool;
+    }
+
+    /**
+     * Generate the table of the given material. The tables of the materials left after each capture must already be
+     * in the tablebases of the generator.
+     * @param material the material, in canonical order
+     * @return the values of the table
+     */
+    public byte[] generate(Tablebase.Material material) {
+        if (!material.isCanonical()) {
+            throw new IllegalArgumentException(String.format("The material %s is not in canonical order",
+                    material.name()));
+        }
+
+        Table table = new Table(material, this.tablebase);
+        Arrays.fill(table.values, UNKNOWN);
+
+        int numIdlePlies = 0;
+        for (int ply = 1; numIdlePlies < 2 || ply <= table.maxCaptureValue + 1; ply++) {
+            if (ply > Byte.MAX_VALUE) {
+                throw new IllegalStateException(String.format("The table %s has values longer than %d plies",
+                        material.name(), Byte.MAX_VALUE));
+            }
+
+            long numResolved = this.pool.invoke(new ResolveTask(table, 0, table.values.length, ply));
+            numIdlePlies = numResolved == 0 ? numIdlePlies + 1 : 0;
+            logger.debug("{} ply {}: {} positions resolved", material.name(), ply, numResolved);
+        }
+
+        for (int index = 0; index < table.values.length; index++) {
+            if (table.values[index] == UNKNOWN) {
+                table.values[index] = 0;
+            }
+        }
+
+        return table.values;
+    }
+
+    /**
+     * Generate the table of the given material and write it to the given directory, after generating the tables of
+     * the materials left after each capture that the tablebases of the generator do not have yet
+     * @param material the material
+     * @param directory the directory of the table files
+     * @throws IOException if a file cannot be written
+     */
+    public void generateWithSubTables(Tablebase.Material material, Path directory) throws IOException {
+        Tablebase.Material canonical = material.canonical();
+        for (int piece = 0; piece < canonical.numPieces(); piece++) {
+            if (canonical.typeOf(piece) == Board.KING) {
+                continue;
+            }
+
+            Tablebase.Material subMaterial = canonical.without(piece).canonical();
+            if (!subMaterial.isBareKings() && this.tablebase.get(subMaterial) == null) {
+                this.generateWithSubTables(subMaterial, directory);
+            }
+        }
+
+        Instant startTime = Instant.now();
+        byte[] values = this.generate(canonical);
+        Path path = Tablebase.write(directory, canonical, values);
+        Duration timeTaken = Duration.between(startTime, Instant.now());
+
+        // the written file is mapped instead of keeping the values, so only the pages in use stay in memory
+        this.tablebase.add(canonical, Tablebase.map(path, canonical));
+
+        int numWins = 0;
+        int numLosses = 0;
+        int longest = 0;
+        for (byte value : values) {
+            numWins += value > 0 ? 1 : 0;
+            numLosses += value < 0 ? 1 : 0;
+            longest = Math.max(longest, Math.abs(value));
+        }
+        logger.info("{}: {} wins, {} losses, longest {} plies, in {} ms", canonical.name(), numWins, numLosses, longest,
+                timeTaken.toMillis());
+    }
+
+    /**
+     * Generate tables from the command line
+     * @param args the directory of the table files, and the materials to generate such as KQvK, or every material of
+     *             up to four pieces if none is given
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TablebaseGenerator <directory> [material...]");
+            System.exit(1);
+        }
+
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+
+        List<Tablebase.Material> materials = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            materials.add(Tablebase.Material.parse(args[i]));
+        }
+        if (materials.isEmpty()) {
+            materials = Tablebase.Material.all(Tablebase.MAX_PIECES);
+        }
+
+        TablebaseGenerator generator = new TablebaseGenerator(Tablebase.open(directory), ForkJoinPool.commonPool());
+        for (Tablebase.Material material : materials) {
+            generator.generateWithSubTables(material, directory);
+        }
+    }
+
+    /**
+     * Get the squares a piece of the given type attacks, which are the squares it can move to apart from its own
+     * pieces since there are no pawns
+     * @param type the type
+     * @param square the square of the piece
+     * @param occupied the occupancy mask of both sides
+     * @return the bitboard
+     */
+    protected static long attacks(int type, int square, long occupied) {
+        return switch (type) {
+            case Board.KNIGHT -> Attacks.knight(square);
+            case Board.BISHOP -> Attacks.bishop(square, occupied);
+            case Board.ROOK -> Attacks.rook(square, occupied);
+            case Board.QUEEN -> Attacks.queen(square, occupied);
+            case Board.KING -> Attacks.king(square);
+            default -> throw new IllegalArgumentException(String.format("The type %s is invalid", type));
+        };
+    }
+
+    /**
+     * The table being generated and the tables its captures lead into
+     */
+    protected static class Table {
+
+        protected final Tablebase.Material material;
+
+        protected final int numPieces;
+
+        protected final int[] types;
+
+        protected final int[] sides;
+
+        /**
+         * The index of the king of each side
+         */
+        protected final int[] kings;
+
+        /**
+         * The shift of the square of each piece in an index
+         */
+        protected final int[] shifts;
+
+        protected final int sideShift;
+
+        protected final byte[] values;
+
+        /**
+         * The table each piece's capture leads into, or null for the kings
+         */
+        protected final Capture[] captures;
+
+        /**
+         * The longest value of the tables captures lead into, in plies
+         */
+        protected final int maxCaptureValue;
+
+        protected Table(Tablebase.Material material, Tablebase tablebase) {
+            this.material = material;
+            this.numPieces = material.numPieces();
+            this.types = new int[this.numPieces];
+            this.sides = new int[this.numPieces];
+            this.shifts = new int[this.numPieces];
+            this.kings = new int[] {0, material.first().length};
+            for (int piece = 0; piece < this.numPieces; piece++) {
+                this.types[piece] = material.typeOf(piece);
+                this.sides[piece] = material.sideOf(piece);
+                this.shifts[piece] = Move.SQUARE_BITS * (this.numPieces - 1 - piece);
+            }
+            this.sideShift = Move.SQUARE_BITS * this.numPieces;
+            this.values = new byte[material.numPositions()];
+
+            this.captures = new Capture[this.numPieces];
+            int maxCaptureValue = 0;
+            for (int piece = 0; piece < this.numPieces; piece++) {
+                if (this.types[piece] != Board.KING) {
+                    this.captures[piece] = new Capture(material, piece, tablebase);
+                    maxCaptureValue = Math.max(maxCaptureValue, this.captures[piece].maxValue());
+                }
+            }
+            this.maxCaptureValue = maxCaptureValue;
+        }
+
+        /**
+         * Find the value of the given position on the given ply
+         * @param index the index of the position
+         * @param ply the ply
+         * @param squares the array to decode the squares of the pieces into
+         * @return the value, or UNKNOWN if it is not resolved on this ply
+         */
+        protected byte resolve(int index, int ply, int[] squares) {
+            int sideToMove = index >>> this.sideShift;
+            long[] occupancy = new long[2];
+            for (int piece = 0; piece < this.numPieces; piece++) {
+                squares[piece] = (index >>> this.shifts[piece]) & Move.SQUARE_MASK;
+                occupancy[this.sides[piece]] |= 1L << squares[piece];
+            }
+
+            long occupied = occupancy[0] | occupancy[1];
+            if (Long.bitCount(occupied) < this.numPieces) {
+                // two pieces on one square, which is never looked up
+                return 0;
+            }
+
+            long opponentKing = 1L << squares[this.kings[1 - sideToMove]];
+            int position = index & ((1 << this.sideShift) - 1);
+            int opponentIndex = (1 - sideToMove) << this.sideShift;
+
+            boolean areAllWins = true;
+            int longestWin = 0;
+            int shortestLoss = Integer.MAX_VALUE;
+
+            for (int piece = 0; piece < this.numPieces; piece++) {
+                if (this.sides[piece] != sideToMove) {
+                    continue;
+                }
+
+                long targets = attacks(this.types[piece], squares[piece], occupied) & ~occupancy[sideToMove];
+                if ((targets & opponentKing) != 0) {
+                    return 1;
+                }
+
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int value;
+                    if ((occupancy[1 - sideToMove] & (1L << to)) != 0) {
+                        value = this.captureValue(piece, to, sideToMove, squares);
+                    } else {
+                        value = this.values[opponentIndex | position + ((to - squares[piece]) << this.shifts[piece])];
+                    }
+
+                    if (value == UNKNOWN || value == 0) {
+                        areAllWins = false;
+                    } else if (value > 0) {
+                        longestWin = Math.max(longestWin, value);
+                    } else {
+                        areAllWins = false;
+                        shortestLoss = Math.min(shortestLoss, -value);
+                    }
+                }
+            }
+
+            if (ply % 2 == 1 && shortestLoss <= ply - 1) {
+                return (byte) ply;
+            } else if (ply % 2 == 0 && areAllWins && longestWin <= ply - 1) {
+                return (byte) -ply;
+            }
+            return UNKNOWN;
+        }
+
+        /**
+         * Get the value of the position after the given piece captures on the given square
+         * @param piece the index of the capturing piece
+         * @param to the square of the captured piece
+         * @param sideToMove the side of the capturing piece
+         * @param squares the squares of the pieces before the capture
+         * @return the value for the opponent
+         */
+        protected int captureValue(int piece, int to, int sideToMove, int[] squares) {
+            int captured = 0;
+            while (squares[captured] != to || this.sides[captured] == sideToMove) {
+                captured++;
+            }
+
+            Capture capture = this.captures[captured];
+            if (capture.values() == null) {
+                return 0;
+            }
+
+            int index = capture.isSwapped() ? sideToMove : 1 - sideToMove;
+            for (int subPiece : capture.pieces()) {
+                index = (index << Move.SQUARE_BITS) | (subPiece == piece ? to : squares[subPiece]);
+            }
+            return capture.values().get(index);
+        }
+    }
+
+    /**
+     * The table a capture of one piece leads into
+     * @param values the values of the table, or null if only the kings are left
+     * @param isSwapped whether the sides of the table are swapped from the sides of the generated one or not
+     * @param pieces the indices of the pieces left in the order of the table
+     */
+    protected record Capture(ByteBuffer values, boolean isSwapped, int[] pieces) {
+
+        protected Capture(Tablebase.Material material, int captured, Tablebase tablebase) {
+            this(valuesOf(material.without(captured), tablebase), !material.without(captured).isCanonical(),
+                    piecesLeft(material, captured));
+        }
+
+        protected static ByteBuffer valuesOf(Tablebase.Material subMaterial, Tablebase tablebase) {
+            if (subMaterial.isBareKings()) {
+                return null;
+            }
+
+            ByteBuffer values = tablebase.get(subMaterial.canonical());
+            if (values == null) {
+                throw new IllegalStateException(String.format("The table %s must be generated first",
+                        subMaterial.canonical().name()));
+            }
+            return values;
+        }
+
+        protected static int[] piecesLeft(Tablebase.Material material, int captured) {
+            int firstLength = material.first().length - (captured < material.first().length ? 1 : 0);
+            int[] pieces = new int[material.numPieces() - 1];
+            int length = 0;
+            for (int piece = 0; piece < material.numPieces(); piece++) {
+                if (piece != captured) {
+                    pieces[length++] = piece;
+                }
+            }
+
+            if (material.without(captured).isCanonical()) {
+                return pieces;
+            }
+
+            // the second side of the generated table is the first side of the table of the capture
+            int[] swapped = new int[pieces.length];
+            System.arraycopy(pieces, firstLength, swapped, 0, pieces.length - firstLength);
+            System.arraycopy(pieces, 0, swapped, pieces.length - firstLength, firstLength);
+            return swapped;
+        }
+
+        /**
+         * Get the longest value of the table
+         * @return the number of plies
+         */
+        protected int maxValue() {
+            int maxValue = 0;
+            if (this.values != null) {
+                for (int index = 0; index < this.values.capacity(); index++) {
+                    maxValue = Math.max(maxValue, Math.abs(this.values.get(index)));
+                }
+            }
+            return maxValue;
+        }
+    }
+
+    /**
+     * Resolves the unknown positions of a range of indices on one ply, splitting the range between tasks
+     */
+    protected static class ResolveTask extends RecursiveTask<Long> {
+
+        protected final Table table;
+
+        protected final int start;
+
+        protected final int end;
+
+        protected final int ply;
+
+        protected ResolveTask(Table table, int start, int end, int ply) {
+            this.table = table;
+            this.start = start;
+            this.end = end;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.end - this.start > TASK_SIZE) {
+                int middle = (this.start + this.end) >>> 1;
+                ResolveTask low = new ResolveTask(this.table, this.start, middle, this.ply);
+                ResolveTask high = new ResolveTask(this.table, middle, this.end, this.ply);
+                ForkJoinTask.invokeAll(low, high);
+                return low.join() + high.join();
+            }
+
+            long numResolved = 0;
+            int[] squares = new int[this.table.numPieces];
+            for (int index = this.start; index < this.end; index++) {
+                if (this.table.values[index] != UNKNOWN) {
+                    continue;
+                }
+
+                byte value = this.table.resolve(index, this.ply, squares);
+                if (value != UNKNOWN) {
+                    this.table.values[index] = value;
+                    numResolved++;
+                }
+            }
+            return numResolved;
+        }
+    }
+}
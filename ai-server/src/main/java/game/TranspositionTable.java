@@ -0,0 +1,269 @@
+package game;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A fixed-size transposition table that can be shared between threads without locking.
+ * Each entry is two longs in one flat array: the key XORed with the data, and the data itself.
+ * A torn write from a concurrent store makes the XOR check fail, so the entry reads as a miss instead of as
+ * a wrong value.
+ * Entries are grouped in buckets of four, and a store replaces the entry of the same key, or else the one with
+ * the least depth, preferring entries left over from earlier searches.
+ */
+public class TranspositionTable {
+
+    /**
+     * The system property that sets the size of the table of each decision that is not part of a session, such as 64m
+     */
+    public static final String SIZE_PROPERTY = "engine.hash";
+
+    protected static final String DEFAULT_SIZE = "16m";
+
+    public static final int EXACT = 1;
+
+    public static final int LOWER_BOUND = 2;
+
+    public static final int UPPER_BOUND = 3;
+
+    /**
+     * The data returned by probe when the key is not in the table. Stored data is never 0, since the bound is never 0
+     */
+    public static final long MISS = 0L;
+
+    protected static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+    protected static final int ENTRIES_PER_BUCKET = 4;
+
+    protected static final int LONGS_PER_BUCKET = 2 * ENTRIES_PER_BUCKET;
+
+    protected static final int MAX_BUCKETS = 1 << 27;
+
+    /**
+     * The number of units of a stored score per unit of value. Every value of the evaluation is a multiple of a
+     * hundredth, so a score is stored exactly as an int
+     */
+    protected static final double SCORE_SCALE = 100.0;
+
+    protected static final int MOVE_SHIFT = 32;
+
+    protected static final int DEPTH_SHIFT = 48;
+
+    protected static final int BOUND_SHIFT = 56;
+
+    protected static final int AGE_SHIFT = 58;
+
+    protected static final int MAX_DEPTH = 0xFF;
+
+    protected static final int AGE_MASK = 0x3F;
+
+    /**
+     * The weight of each search generation in the replacement policy, in plies of depth
+     */
+    protected static final int AGE_WEIGHT = 8;
+
+    protected final long[] table;
+
+    protected final int bucketMask;
+
+    protected volatile int age;
+
+    public TranspositionTable(long sizeInBytes) {
+        long numBuckets = Math.max(1, sizeInBytes / (BYTES_PER_ENTRY * ENTRIES_PER_BUCKET));
+        int buckets = (int) Math.min(Long.highestOneBit(numBuckets), MAX_BUCKETS);
+
+        this.table = new long[buckets * LONGS_PER_BUCKET];
+        this.bucketMask = buckets - 1;
+        this.age = 0;
+    }
+
+    /**
+     * Create an empty table of the size read from the engine.hash property, for a search that keeps nothing from
+     * the searches before it
+     * @return the table
+     */
+    public static TranspositionTable ofDefaultSize() {
+        return new TranspositionTable(parseSize(System.getProperty(SIZE_PROPERTY, DEFAULT_SIZE)));
+    }
+
+    /**
+     * Parse the size of the table such as 256m, 1g or 65536
+     * @param size the size with an optional k, m or g suffix
+     * @return the size in bytes
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        if (value.endsWith("b")) {
+            value = value.substring(0, value.length() - 1);
+        }
+
+        long unit = 1;
+        if (!value.isEmpty()) {
+            switch (value.charAt(value.length() - 1)) {
+                case 'k' -> unit = 1L << 10;
+                case 'm' -> unit = 1L << 20;
+                case 'g' -> unit = 1L << 30;
+            }
+        }
+        if (unit != 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+
+        try {
+            return Long.parseLong(value) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("The table size %s is invalid", size), e);
+        }
+    }
+
+    /**
+     * Get the size of the table
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return (long) this.table.length * Long.BYTES;
+    }
+
+    /**
+     * Start a new search, so the entries of the previous searches become preferred for replacement
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        Arrays.fill(this.table, 0L);
+    }
+
+    /**
+     * Look up the entry of the given key
+     * @param key the Zobrist key
+     * @return the packed data, or MISS if the key is not in the table
+     */
+    public long probe(long key) {
+        int bucket = this.bucketOf(key);
+        for (int i = bucket; i < bucket + LONGS_PER_BUCKET; i += 2) {
+            long data = this.table[i + 1];
+            if ((this.table[i] ^ data) == key && data != MISS) {
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Store the result of a search
+     * @param key the Zobrist key
+     * @param move the best move found, or Move.NO_MOVE
+     * @param score the value of the search
+     * @param depth the depth searched below the state
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long key, int move, double score, int depth, int bound) {
+        int currentAge = this.age;
+        int bucket = this.bucketOf(key);
+
+        int replace = bucket;
+        int replaceWorth = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + LONGS_PER_BUCKET; i += 2) {
+            long data = this.table[i + 1];
+            if ((this.table[i] ^ data) == key || data == MISS) {
+                if (data != MISS && depthOf(data) > depth && bound != EXACT && ageOf(data) == currentAge) {
+                    return;
+                }
+                if (move == Move.NO_MOVE && data != MISS) {
+                    move = moveOf(data);
+                }
+                replace = i;
+                break;
+            }
+
+            int worth = depthOf(data) - AGE_WEIGHT * ((currentAge - ageOf(data)) & AGE_MASK);
+            if (worth < replaceWorth) {
+                replaceWorth = worth;
+                replace = i;
+            }
+        }
+
+        long data = pack(move, score, depth, bound, currentAge);
+        this.table[replace] = key ^ data;
+        this.table[replace + 1] = data;
+    }
+
+    /**
+     * Get the best move of the entry
+     * @param data the packed data
+     * @return the move
+     */
+    public static int moveOf(long data) {
+        return (int) ((data >>> MOVE_SHIFT) & 0xFFFF);
+    }
+
+    /**
+     * Get the score of the entry
+     * @param data the packed data
+     * @return the score
+     */
+    public static double scoreOf(long data) {
+        return (int) data / SCORE_SCALE;
+    }
+
+    /**
+     * Get the depth of the entry
+     * @param data the packed data
+     * @return the depth searched below the state
+     */
+    public static int depthOf(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & MAX_DEPTH);
+    }
+
+    /**
+     * Get the bound type of the entry
+     * @param data the packed data
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public static int boundOf(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    /**
+     * Check if the score of the entry can be used for a search in the given window
+     * @param data the packed data
+     * @param depth the depth to be searched below the state
+     * @param maxBest the best value for the max
+     * @param minBest the best value for the min
+     * @return true if it can, false otherwise
+     */
+    public static boolean isUsable(long data, int depth, double maxBest, double minBest) {
+        if (data == MISS || depthOf(data) < depth) {
+            return false;
+        }
+
+        double score = scoreOf(data);
+        return switch (boundOf(data)) {
+            case EXACT -> true;
+            case LOWER_BOUND -> score >= minBest;
+            case UPPER_BOUND -> score <= maxBest;
+            default -> false;
+        };
+    }
+
+    protected static int ageOf(long data) {
+        return (int) ((data >>> AGE_SHIFT) & AGE_MASK);
+    }
+
+    protected static long pack(int move, double score, int depth, int bound, int age) {
+        return (Math.round(score * SCORE_SCALE) & 0xFFFFFFFFL)
+                | ((long) (move & 0xFFFF) << MOVE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+    }
+
+    protected int bucketOf(long key) {
+        return ((int) (key ^ (key >>> 32)) & this.bucketMask) * LONGS_PER_BUCKET;
+    }
+}
@@ -0,0 +1,43 @@
+package game;
+
+import java.util.Random;
+
+/**
+ * The random keys used to hash the board.
+ * The keys are generated from a fixed seed, so hashes are stable between runs.
+ */
+public final class Zobrist {
+
+    protected static final long SEED = 0x5EED_C4E5_5B07L;
+
+    /**
+     * The keys of each piece on each square, indexed by (color * NUM_PIECE_TYPES + type) * NUM_SQUARES + square
+     */
+    protected static final long[] PIECE_KEYS = new long[2 * Board.NUM_PIECE_TYPES * Board.NUM_SQUARES];
+
+    /**
+     * The key toggled when it is the bot turn
+     */
+    public static final long BOT_TURN_KEY;
+
+    static {
+        Random random = new Random(SEED);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        BOT_TURN_KEY = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Get the key of the piece of the given color and type on the given square
+     * @param color the color
+     * @param type the type
+     * @param square the square
+     * @return the key
+     */
+    public static long pieceKey(int color, int type, int square) {
+        return PIECE_KEYS[(color * Board.NUM_PIECE_TYPES + type) * Board.NUM_SQUARES + square];
+    }
+}
@@ -0,0 +1,261 @@
+package piece;
+
+import game.Board;
+import util.Position;
+
+/**
+ * The precomputed attack tables of the pieces, indexed by the square index of the board.
+ * Knight, king and pawn attacks are plain lookups. Rook and bishop attacks are found with magic bitboards: the
+ * blockers on the rays of the square are multiplied by a magic number so that the top bits index a table of the
+ * attacks for that set of blockers. The tables are generated once when the class is loaded.
+ */
+public final class Attacks {
+
+    /**
+     * The magic numbers of the rook on each square. They were found by trying random sparse numbers until no two
+     * sets of blockers with different attacks shared an index, which takes too long to repeat at start up.
+     */
+    protected static final long[] ROOK_MAGIC_NUMBERS = {
+            0x9980001C40018061L, 0x1500210180400212L, 0x0100200100100840L, 0x0880040800801000L,
+            0x0280080002800400L, 0x5100010084000208L, 0x0C80110000800200L, 0x0200028411004026L,
+            0x0204800080400024L, 0x0508404000201000L, 0x0001001020010842L, 0x8808801000080081L,
+            0x040880040080C800L, 0x000A004200041008L, 0x0001000402000100L, 0x0002000200804104L,
+            0x4004208010400480L, 0x2A00808040002004L, 0x1038410010200104L, 0x8000808008001000L,
+            0x400182800800C400L, 0x0021010008020400L, 0x6010040008010210L, 0x020022000CD40081L,
+            0x1080004440002000L, 0x2110044240002008L, 0x04A0200080100080L, 0x0010040040400800L,
+            0x0081080280240080L, 0x0004008080040200L, 0x0018220400015028L, 0x6000808200204401L,
+            0x0210400020800886L, 0x3010401101002080L, 0x4008802008801000L, 0x0A02002012000840L,
+            0x0008080065001101L, 0x0003000401000802L, 0x0012000102000804L, 0x1004008842000421L,
+            0x0A38400283618002L, 0x8010002012414004L, 0x1000482200820011L, 0x4850002011010008L,
+            0x0200080100110004L, 0x0004000810020200L, 0x0008511002040018L, 0x10000841008A000CL,
+            0x0002002900488200L, 0x2283400118E08500L, 0x40A0080040100040L, 0x0002840802100080L,
+            0x8008020880040080L, 0x4E12040080020080L, 0x0004100182080400L, 0x1010340840810200L,
+            0x90C1001424800041L, 0x0428208100104001L, 0x0821459100082001L, 0x4002210010000409L,
+            0x0012001430200806L, 0x9011000400020801L, 0x0404411A1000880CL, 0x0010008024004102L
+    };
+
+    /**
+     * The magic numbers of the bishop on each square, found the same way as the rook ones
+     */
+    protected static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x0020011022008820L, 0x10208A1206042108L, 0x04D0811041000000L, 0x080C241288002840L,
+            0x0022021040000000L, 0x0100880440000510L, 0x80190C0104408028L, 0xE000202104504008L,
+            0x08823808250C0C24L, 0x0080024408008100L, 0x010008009C008010L, 0x8411822092042802L,
+            0x8220011040000400L, 0x2180420184202010L, 0x0400004210100802L, 0x3008048400D21000L,
+            0x4008A14410844800L, 0x361064A001412100L, 0x4A40800800810008L, 0x0024830802004452L,
+            0x400D018820082000L, 0x0002200410080804L, 0x12C4004101311080L, 0x0810441104020108L,
+            0x0408C00028510102L, 0x02080800204200A0L, 0x1000240048044408L, 0x0004040048021084L,
+            0x0001001081004008L, 0x0003044002082002L, 0x0008010001A40D20L, 0x005A004082090092L,
+            0x0001101020086010L, 0x0401282010882100L, 0x0400210102500400L, 0x0010A02020480080L,
+            0x0090120020080408L, 0x5021100080040A08L, 0x0984088201428840L, 0x0104104048808404L,
+            0x1004024805004020L, 0x3000440420020408L, 0x4122228020805000L, 0x000080A204200800L,
+            0xA000110522000C00L, 0x0082009001000880L, 0x00100200810C1405L, 0x0041014202840204L,
+            0x0021040202400010L, 0x8001040884050000L, 0x8400010080904000L, 0x0081008084110004L,
+            0xD000002002048090L, 0x0001221450008810L, 0x8160208416808100L, 0x04449052020A2220L,
+            0x0085004802084210L, 0x0441204518882000L, 0x0220000132051000L, 0x012080004A104404L,
+            0x80210200A0204111L, 0x2012000811102082L, 0x0810100408081040L, 0x00D0445004014110L
+    };
+
+    protected static final int[][] KNIGHT_OFFSETS = {{-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {-2, -1}, {-2, 1}, {2, -1},
+            {2, 1}};
+
+    protected static final int[][] KING_OFFSETS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0},
+            {1, 1}};
+
+    protected static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    protected static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    protected static final long[] KNIGHT = new long[Board.NUM_SQUARES];
+
+    protected static final long[] KING = new long[Board.NUM_SQUARES];
+
+    /**
+     * The squares attacked by a pawn, indexed by color * NUM_SQUARES + square
+     */
+    protected static final long[] PAWN = new long[2 * Board.NUM_SQUARES];
+
+    protected static final Magic[] ROOK_MAGICS = new Magic[Board.NUM_SQUARES];
+
+    protected static final Magic[] BISHOP_MAGICS = new Magic[Board.NUM_SQUARES];
+
+    /**
+     * The magic lookup of one square
+     * @param mask the squares whose blockers change the attacks, without the edges of the rays
+     * @param magic the magic number
+     * @param shift the shift that leaves the index bits
+     * @param attacks the attacks indexed by the magic index
+     */
+    protected record Magic(long mask, long magic, int shift, long[] attacks) {
+
+        protected long attacks(long occupied) {
+            return this.attacks[(int) (((occupied & this.mask) * this.magic) >>> this.shift)];
+        }
+    }
+
+    static {
+        for (int square = 0; square < Board.NUM_SQUARES; square++) {
+            KNIGHT[square] = leaperAttacks(square, KNIGHT_OFFSETS);
+            KING[square] = leaperAttacks(square, KING_OFFSETS);
+            PAWN[Board.BOT * Board.NUM_SQUARES + square] = leaperAttacks(square, new int[][] {{-1, 1}, {1, 1}});
+            PAWN[Board.HUMAN * Board.NUM_SQUARES + square] = leaperAttacks(square, new int[][] {{-1, -1}, {1, -1}});
+        }
+
+        for (int square = 0; square < Board.NUM_SQUARES; square++) {
+            ROOK_MAGICS[square] = createMagic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = createMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+        }
+    }
+
+    private Attacks() {}
+
+    /**
+     * Get the squares a knight on the given square attacks
+     * @param square the square
+     * @return the bitboard
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Get the squares a king on the given square attacks
+     * @param square the square
+     * @return the bitboard
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Get the squares a pawn of the given color on the given square attacks
+     * @param color the color
+     * @param square the square
+     * @return the bitboard
+     */
+    public static long pawn(int color, int square) {
+        return PAWN[color * Board.NUM_SQUARES + square];
+    }
+
+    /**
+     * Get the squares a rook on the given square attacks
+     * @param square the square
+     * @param occupied the occupancy mask of both colors
+     * @return the bitboard, including the first blocker of each ray
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * Get the squares a bishop on the given square attacks
+     * @param square the square
+     * @param occupied the occupancy mask of both colors
+     * @return the bitboard, including the first blocker of each ray
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * Get the squares a queen on the given square attacks
+     * @param square the square
+     * @param occupied the occupancy mask of both colors
+     * @return the bitboard, including the first blocker of each ray
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    protected static long leaperAttacks(int square, int[][] offsets) {
+        int x = square % Board.BOARD_SIZE;
+        int y = square / Board.BOARD_SIZE;
+
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            if (Position.isWithinBound(x + offset[0], y + offset[1])) {
+                attacks |= 1L << Board.square(x + offset[0], y + offset[1]);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walk the rays from the given square until the edge or the first blocker
+     * @param square the square
+     * @param directions the directions of the rays
+     * @param occupied the blockers
+     * @return the bitboard
+     */
+    protected static long slidingAttacks(int square, int[][] directions, long occupied) {
+        int x = square % Board.BOARD_SIZE;
+        int y = square / Board.BOARD_SIZE;
+
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int i = x + direction[0];
+            int j = y + direction[1];
+            while (Position.isWithinBound(i, j)) {
+                long bit = 1L << Board.square(i, j);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                i += direction[0];
+                j += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Get the squares whose blockers change the attacks from the given square. The last square of each ray is left
+     * out, since it is attacked whether it is occupied or not.
+     */
+    protected static long relevantMask(int square, int[][] directions) {
+        int x = square % Board.BOARD_SIZE;
+        int y = square / Board.BOARD_SIZE;
+
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int i = x + direction[0];
+            int j = y + direction[1];
+            while (Position.isWithinBound(i + direction[0], j + direction[1])) {
+                mask |= 1L << Board.square(i, j);
+                i += direction[0];
+                j += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Fill the attack table of the given square indexed by the given magic number
+     * @param square the square
+     * @param directions the directions of the rays
+     * @param magic the magic number
+     * @return the magic lookup
+     */
+    protected static Magic createMagic(int square, int[][] directions, long magic) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int shift = Long.SIZE - bits;
+
+        long[] table = new long[1 << bits];
+        boolean[] isFilled = new boolean[table.length];
+
+        long blockers = 0L;
+        do {
+            int index = (int) ((blockers * magic) >>> shift);
+            long attacks = slidingAttacks(square, directions, blockers);
+            if (isFilled[index] && table[index] != attacks) {
+                throw new IllegalStateException("The magic number of the square " + square + " is invalid.");
+            }
+            table[index] = attacks;
+            isFilled[index] = true;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+
+        return new Magic(mask, magic, shift, table);
+    }
+}
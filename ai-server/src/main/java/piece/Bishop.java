@@ -1,19 +1,13 @@
 package piece;
 
 import game.Player;
-import util.Direction;
 import util.Position;
 
-import java.util.Collection;
-
 /**
  * The bishop piece of the chess
  */
 public class Bishop extends Piece {
 
-    protected static final Direction[] directions = {Direction.UPLEFT, Direction.UPRIGHT, Direction.DOWNLEFT,
-            Direction.DOWNRIGHT};
-
     public static final char BLACK_ICON = '♝';
 
     public static final char WHITE_ICON = '♗';
@@ -22,11 +16,6 @@ public class Bishop extends Piece {
     super(player, position);
     }
 
-    @Override
-    public Collection<Position> movements(Player opponent) {
-        return this.movements(opponent, directions);
-    }
-
     @Override
     public char getBlackIcon() {
         return BLACK_ICON;
@@ -2,15 +2,13 @@ package piece;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import game.Board;
+import game.MoveGenerator;
 import game.Player;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import util.Cursor;
-import util.Direction;
 import util.Position;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -18,8 +16,6 @@ import java.util.List;
  */
 public abstract class Piece {
 
-    private static final Logger logger = LogManager.getLogger();
-
     protected Player player;
 
     protected Position position;
@@ -43,6 +39,7 @@ public abstract class Piece {
      * @param newPosition the new position to move to
      */
     public void moveTo(Position newPosition) {
+        this.player.movePiece(this.position, newPosition);
         this.position = newPosition;
     }
 
@@ -82,12 +79,33 @@ public abstract class Piece {
         return this.getPosition().y();
     }
 
+    /**
+     * Get the square index of the piece on the board
+     * @return the square
+     */
+    @JsonIgnore
+    public int getSquare() {
+        return Board.square(this.getPosition());
+    }
+
     /**
      * Return all possible movements of the piece
      * @param opponent the opponent player of the piece
      * @return the movements
      */
-    public abstract Collection<Position> movements(Player opponent);
+    public Collection<Position> movements(Player opponent) {
+        return toPositions(this.targets(opponent));
+    }
+
+    /**
+     * Return the squares the piece can move to, which are those of the move generator
+     * @param opponent the opponent player of the piece
+     * @return the bitboard of the squares
+     */
+    public long targets(Player opponent) {
+        return MoveGenerator.targets(this.player.getBoard(), this.player.getColor(), Board.typeOf(this.getIcon()),
+                this.getSquare());
+    }
 
     /**
      * Get a string that represents this piece for the black player
@@ -104,42 +122,16 @@ public abstract class Piece {
     protected abstract char getWhiteIcon();
 
     /**
-     * Return all possible movements of the given piece to the given directions
-     * @param opponent the opponent player of the given piece
-     * @param directions the directions to get the movements
-     * @return the movements to the direction
-     */
-    protected Collection<Position> movements(Player opponent, Direction[] directions) {
-        List<Position> movements = new LinkedList<>();
-        for (Direction direction : directions) {
-            Cursor cursor = new Cursor(this.getX(), this.getY(), direction);
-
-            while (cursor.canMove() && !opponent.isOccupied(cursor.getPosition())) {
-                cursor.move();
-                if (this.player.isOccupied(cursor.getPosition())) {
-                    break;
-                } else {
-                    movements.add(cursor.getPosition());
-                }
-            }
-        }
-
-        return movements;
-    }
-
-    /**
-     * Clone this piece
-     * @param player the player of the piece
-     * @return the clone
+     * Convert the given bitboard to the positions of its squares
+     * @param squares the bitboard
+     * @return the positions
      */
-    public Piece clone(Player player) {
-        try {
-            return this.getClass()
-                    .getDeclaredConstructor(Player.class, Position.class)
-                    .newInstance(player, this.position);
-        } catch (Exception e) {
-            throw logger.throwing(new RuntimeException(e));
+    protected static Collection<Position> toPositions(long squares) {
+        List<Position> positions = new ArrayList<>(Long.bitCount(squares));
+        for (long bb = squares; bb != 0; bb &= bb - 1) {
+            positions.add(Board.position(Long.numberOfTrailingZeros(bb)));
         }
+        return positions;
     }
 
     public String toString() {
@@ -1,15 +0,0 @@
-package util;
-
-/**
- * The possible directions of the movement in the chess board
- */
-public enum Direction {
-    LEFT,
-    RIGHT,
-    UP,
-    DOWN,
-    UPLEFT,
-    UPRIGHT,
-    DOWNLEFT,
-    DOWNRIGHT
-}
@@ -0,0 +1,38 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerftTest {
+
+    @Test
+    void countsMatchTheReferences() {
+        List<String> mismatches = Perft.verify(5);
+
+        assertTrue(mismatches.isEmpty(), () -> String.join("\n", mismatches));
+    }
+
+    @Test
+    void controlledCountMatchesTheParallelCount() {
+        for (Perft.Reference reference : Perft.loadReferences()) {
+            Board board = State.parse(reference.board(), reference.isBotTurn()).getBoard();
+            Optional<PerftRecord> perftRecord = Perft.run(board, 4, new SearchControl(null, null));
+
+            assertTrue(perftRecord.isPresent(), reference.name());
+            assertEquals(reference.counts()[4], perftRecord.get().numLeaves(), reference.name());
+        }
+    }
+
+    @Test
+    void abortedCountHasNoResult() {
+        SearchControl control = new SearchControl(null, null);
+        control.abort();
+
+        assertTrue(Perft.run(Board.initial(), 3, control).isEmpty());
+    }
+}